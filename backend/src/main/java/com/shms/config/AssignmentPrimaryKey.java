@@ -0,0 +1,49 @@
+package com.shms.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Gives an existing doctor_patients table its (doctor_id, patient_id) primary key.
+ * The table was created as a many-to-many bag without one, so it may hold duplicate
+ * assignments; those are removed first, under a lock, in the same transaction.
+ * Schema updates cannot add a primary key, and new databases already get it from
+ * DoctorPatientAssignment, so this only runs where the key is missing.
+ */
+@Component
+public class AssignmentPrimaryKey implements SmartInitializingSingleton {
+    private static final Logger logger = LoggerFactory.getLogger(AssignmentPrimaryKey.class);
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        Boolean keyed = jdbcTemplate.queryForObject(
+                "SELECT EXISTS (SELECT 1 FROM pg_constraint "
+                        + "WHERE conrelid = 'doctor_patients'::regclass AND contype IN ('p', 'u'))",
+                Boolean.class);
+        if (Boolean.TRUE.equals(keyed)) {
+            return;
+        }
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            jdbcTemplate.execute("LOCK TABLE doctor_patients IN EXCLUSIVE MODE");
+            int duplicates = jdbcTemplate.update("DELETE FROM doctor_patients a USING doctor_patients b "
+                    + "WHERE a.doctor_id = b.doctor_id AND a.patient_id = b.patient_id AND a.ctid > b.ctid");
+            jdbcTemplate.execute("ALTER TABLE doctor_patients ADD PRIMARY KEY (doctor_id, patient_id)");
+            // The primary key index replaces the old non-unique one
+            jdbcTemplate.execute("DROP INDEX IF EXISTS idx_doctor_patients_doctor_patient");
+            logger.info("Added primary key to doctor_patients, removing {} duplicate assignments", duplicates);
+        });
+    }
+}
@@ -3,6 +3,7 @@ package com.shms.config;
 import java.util.HashSet;
 import java.util.Set;
 
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.security.crypto.password.PasswordEncoder;
@@ -25,27 +26,36 @@ public class DataInitializer implements CommandLineRunner {
     
     @Autowired
     private PasswordEncoder passwordEncoder;
+    
+    @Autowired
+    private RoleRegistry roleRegistry;
+    
+    // Only present with the "seed" profile
+    @Autowired
+    private ObjectProvider<SyntheticDataSeeder> syntheticDataSeeder;
 
     @Override
     public void run(String... args) throws Exception {
         initRoles();
         initAdminUser();
+        syntheticDataSeeder.ifAvailable(SyntheticDataSeeder::seed);
     }
     
     private void initRoles() {
-        if (roleRepository.count() == 0) {
-            Role adminRole = new Role();
-            adminRole.setName(ERole.ROLE_ADMIN);
-            roleRepository.save(adminRole);
-            
-            Role doctorRole = new Role();
-            doctorRole.setName(ERole.ROLE_DOCTOR);
-            roleRepository.save(doctorRole);
-            
-            Role patientRole = new Role();
-            patientRole.setName(ERole.ROLE_PATIENT);
-            roleRepository.save(patientRole);
-            
+        roleRegistry.load();
+        
+        boolean created = false;
+        for (ERole name : ERole.values()) {
+            if (!roleRegistry.contains(name)) {
+                Role role = new Role();
+                role.setName(name);
+                roleRepository.save(role);
+                created = true;
+            }
+        }
+        
+        if (created) {
+            roleRegistry.load();
             System.out.println("Initialized default roles");
         }
     }
@@ -60,9 +70,7 @@ public class DataInitializer implements CommandLineRunner {
             adminUser.setLastName("User");
             
             Set<Role> roles = new HashSet<>();
-            Role adminRole = roleRepository.findByName(ERole.ROLE_ADMIN)
-                    .orElseThrow(() -> new RuntimeException("Error: Admin Role not found."));
-            roles.add(adminRole);
+            roles.add(roleRegistry.get(ERole.ROLE_ADMIN));
             
             adminUser.setRoles(roles);
             userRepository.save(adminUser);
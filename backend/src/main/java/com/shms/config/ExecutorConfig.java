@@ -0,0 +1,77 @@
+package com.shms.config;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ThreadPoolExecutor;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+
+@Configuration
+public class ExecutorConfig {
+
+    /**
+     * Workers for batch record decryption. Each worker holds a database connection
+     * while it reads a record, so the pool stays well below the connection pool size.
+     * When the queue is full the request thread decrypts the item itself.
+     */
+    @Bean(name = "recordDecryptExecutor")
+    public ThreadPoolTaskExecutor recordDecryptExecutor(
+            @Value("${shms.batch-decrypt.pool-size}") int poolSize,
+            @Value("${shms.batch-decrypt.queue-capacity}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("record-decrypt-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * Pool for the CPU-bound part of patient imports (BCrypt, PBKDF2, key generation)
+     */
+    @Bean(name = "patientImportPool", destroyMethod = "shutdown")
+    public ForkJoinPool patientImportPool(@Value("${shms.patient-import.parallelism}") int parallelism) {
+        return new ForkJoinPool(parallelism);
+    }
+
+    /**
+     * Workers for background user purges. Jobs queue without bound since each is a
+     * database row; one worker keeps purges from competing with each other for locks.
+     * Jobs cut off by shutdown are resumed on the next start.
+     */
+    @Bean(name = "userPurgeExecutor")
+    public ThreadPoolTaskExecutor userPurgeExecutor(@Value("${shms.user-purge.pool-size}") int poolSize) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setThreadNamePrefix("user-purge-");
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * Publish queue and pool metrics for the executors above
+     */
+    @Bean
+    public MeterBinder executorMetrics(@Qualifier("recordDecryptExecutor") ThreadPoolTaskExecutor recordDecryptExecutor,
+                                       @Qualifier("userPurgeExecutor") ThreadPoolTaskExecutor userPurgeExecutor,
+                                       @Qualifier("patientImportPool") ForkJoinPool patientImportPool) {
+        return registry -> {
+            new ExecutorServiceMetrics(recordDecryptExecutor.getThreadPoolExecutor(), "recordDecrypt", Tags.empty())
+                    .bindTo(registry);
+            new ExecutorServiceMetrics(userPurgeExecutor.getThreadPoolExecutor(), "userPurge", Tags.empty())
+                    .bindTo(registry);
+            new ExecutorServiceMetrics(patientImportPool, "patientImport", Tags.empty()).bindTo(registry);
+        };
+    }
+}
@@ -0,0 +1,45 @@
+package com.shms.config;
+
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Moves the pooled id sequences past the ids already in their tables.
+ * Tables created before the switch from identity columns keep their old ids, while
+ * Hibernate creates the sequences fresh. The pooled optimizer hands out the block
+ * below each nextval, so the sequence only has to sit at or above the highest id.
+ * Runs once all beans exist and before the web server accepts requests.
+ */
+@Component
+public class IdSequenceAlignment implements SmartInitializingSingleton {
+    private static final Logger logger = LoggerFactory.getLogger(IdSequenceAlignment.class);
+
+    private static final Map<String, String> SEQUENCES = Map.of(
+            "users", "users_seq",
+            "roles", "roles_seq",
+            "doctors", "doctors_seq",
+            "patients", "patients_seq",
+            "medical_records", "medical_records_seq");
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        SEQUENCES.forEach((table, sequence) -> {
+            // Never moves a sequence backwards, so restarts are harmless
+            Long value = jdbcTemplate.queryForObject(
+                    "SELECT setval('" + sequence + "', GREATEST("
+                            + "(SELECT COALESCE(MAX(id), 0) FROM " + table + "), "
+                            + "(SELECT last_value FROM " + sequence + ")))",
+                    Long.class);
+            logger.debug("Sequence {} aligned at {}", sequence, value);
+        });
+    }
+}
@@ -0,0 +1,26 @@
+package com.shms.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+@Component
+public class PaginationSettings {
+
+    @Value("${shms.pagination.default-size}")
+    private int defaultSize;
+
+    @Value("${shms.pagination.max-size}")
+    private int maxSize;
+
+    /**
+     * Clamp a requested page size to the configured bounds
+     * @param requested Page size from the request, may be null
+     * @return Page size to use
+     */
+    public int resolvePageSize(Integer requested) {
+        if (requested == null || requested <= 0) {
+            return defaultSize;
+        }
+        return Math.min(requested, maxSize);
+    }
+}
@@ -0,0 +1,98 @@
+package com.shms.config;
+
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+
+import org.hibernate.engine.jdbc.BlobProxy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.shms.model.MedicalRecord;
+import com.shms.model.MedicalRecordContent;
+
+/**
+ * Moves ciphertext from the legacy Base64 {@code medical_records.encrypted_content}
+ * column into binary {@code medical_record_contents} rows. Each batch commits on its
+ * own and clears the legacy column, so an interrupted migration resumes where it
+ * stopped on the next start.
+ */
+@Component
+public class RecordContentMigration implements CommandLineRunner {
+    private static final Logger logger = LoggerFactory.getLogger(RecordContentMigration.class);
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Value("${shms.migration.record-content.enabled}")
+    private boolean enabled;
+
+    @Value("${shms.migration.record-content.batch-size}")
+    private int batchSize;
+
+    @Override
+    public void run(String... args) throws Exception {
+        if (!enabled || !hasLegacyColumn()) {
+            return;
+        }
+
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        long migrated = 0;
+        int moved;
+        do {
+            moved = transactionTemplate.execute(status -> migrateBatch());
+            migrated += moved;
+            if (moved > 0) {
+                logger.info("Migrated {} medical record contents to binary storage", migrated);
+            }
+        } while (moved == batchSize);
+    }
+
+    private boolean hasLegacyColumn() {
+        Integer count = jdbcTemplate.queryForObject(
+                "SELECT count(*) FROM information_schema.columns "
+                        + "WHERE table_name = 'medical_records' AND column_name = 'encrypted_content'",
+                Integer.class);
+        return count != null && count > 0;
+    }
+
+    private int migrateBatch() {
+        List<Map<String, Object>> rows = jdbcTemplate.queryForList(
+                "SELECT id, encrypted_content FROM medical_records "
+                        + "WHERE encrypted_content IS NOT NULL ORDER BY id LIMIT ?",
+                batchSize);
+
+        for (Map<String, Object> row : rows) {
+            Long id = ((Number) row.get("id")).longValue();
+            byte[] encryptedContent = Base64.getMimeDecoder().decode((String) row.get("encrypted_content"));
+
+            MedicalRecordContent content = new MedicalRecordContent();
+            content.setRecord(entityManager.getReference(MedicalRecord.class, id));
+            content.setData(BlobProxy.generateProxy(encryptedContent));
+            entityManager.persist(content);
+            entityManager.flush();
+            entityManager.clear();
+
+            jdbcTemplate.update(
+                    "UPDATE medical_records SET encrypted_content = NULL, content_length = ? WHERE id = ?",
+                    (long) encryptedContent.length, id);
+        }
+        return rows.size();
+    }
+}
@@ -0,0 +1,56 @@
+package com.shms.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Frees the large object behind a record's content when its medical_record_contents
+ * row goes away. The oid column only points at the large object, so deleting the
+ * row, directly or through the ON DELETE CASCADE from medical_records, would leave
+ * it behind in pg_largeobject. A trigger covers every path that deletes records,
+ * and also unlinks the old object when a row's content is replaced. Objects already
+ * unlinked by hand are skipped.
+ */
+@Component
+public class RecordContentTrigger implements SmartInitializingSingleton {
+    private static final Logger logger = LoggerFactory.getLogger(RecordContentTrigger.class);
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            jdbcTemplate.execute("CREATE OR REPLACE FUNCTION unlink_record_content() RETURNS trigger AS $$ "
+                    + "BEGIN "
+                    + "IF EXISTS (SELECT 1 FROM pg_largeobject_metadata WHERE oid = OLD.data) THEN "
+                    + "PERFORM lo_unlink(OLD.data); "
+                    + "END IF; "
+                    + "RETURN NULL; "
+                    + "END $$ LANGUAGE plpgsql");
+
+            // CREATE TRIGGER has no IF NOT EXISTS; replacing both keeps restarts idempotent
+            jdbcTemplate.execute("DROP TRIGGER IF EXISTS medical_record_contents_unlink_on_delete "
+                    + "ON medical_record_contents");
+            jdbcTemplate.execute("CREATE TRIGGER medical_record_contents_unlink_on_delete "
+                    + "AFTER DELETE ON medical_record_contents "
+                    + "FOR EACH ROW EXECUTE PROCEDURE unlink_record_content()");
+            jdbcTemplate.execute("DROP TRIGGER IF EXISTS medical_record_contents_unlink_on_update "
+                    + "ON medical_record_contents");
+            jdbcTemplate.execute("CREATE TRIGGER medical_record_contents_unlink_on_update "
+                    + "AFTER UPDATE OF data ON medical_record_contents "
+                    + "FOR EACH ROW WHEN (OLD.data IS DISTINCT FROM NEW.data) "
+                    + "EXECUTE PROCEDURE unlink_record_content()");
+        });
+        logger.info("Record content large object triggers ready");
+    }
+}
@@ -0,0 +1,46 @@
+package com.shms.config;
+
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Creates the record search indexes that JPA cannot describe. The file name search
+ * is a case-insensitive prefix match, which needs an expression index on
+ * {@code lower(file_name)} with {@code text_pattern_ops} so LIKE 'abc%' can use it
+ * under any database collation. Built concurrently so an existing table stays writable.
+ */
+@Component
+public class RecordSearchIndexes implements SmartInitializingSingleton {
+    private static final Logger logger = LoggerFactory.getLogger(RecordSearchIndexes.class);
+
+    private static final String FILE_NAME_INDEX = "idx_medical_records_patient_file_name";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        // A concurrent build cut short leaves an INVALID index that IF NOT EXISTS would keep
+        List<Boolean> valid = jdbcTemplate.queryForList("SELECT i.indisvalid FROM pg_index i "
+                + "JOIN pg_class c ON c.oid = i.indexrelid "
+                + "WHERE c.relname = ? AND pg_table_is_visible(c.oid)", Boolean.class, FILE_NAME_INDEX);
+        if (!valid.isEmpty()) {
+            if (valid.get(0)) {
+                return;
+            }
+            logger.info("Index {} is invalid after an interrupted build; rebuilding it", FILE_NAME_INDEX);
+            jdbcTemplate.execute("DROP INDEX CONCURRENTLY IF EXISTS " + FILE_NAME_INDEX);
+        }
+
+        logger.info("Building index {}", FILE_NAME_INDEX);
+        jdbcTemplate.execute("CREATE INDEX CONCURRENTLY IF NOT EXISTS " + FILE_NAME_INDEX + " "
+                + "ON medical_records (patient_id, lower(file_name) text_pattern_ops)");
+        logger.info("Record search indexes ready");
+    }
+}
@@ -0,0 +1,57 @@
+package com.shms.config;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import com.shms.model.ERole;
+import com.shms.model.Role;
+import com.shms.repository.RoleRepository;
+
+/**
+ * The role rows, loaded once. Roles are created by {@link DataInitializer} and
+ * never change afterwards, so registrations do not need to look them up.
+ */
+@Component
+public class RoleRegistry {
+
+    @Autowired
+    private RoleRepository roleRepository;
+
+    private volatile Map<ERole, Role> roles = new EnumMap<>(ERole.class);
+
+    /**
+     * Reload the roles from the database
+     */
+    public void load() {
+        Map<ERole, Role> loaded = new EnumMap<>(ERole.class);
+        for (Role role : roleRepository.findAll()) {
+            loaded.put(role.getName(), role);
+        }
+        roles = loaded;
+    }
+
+    /**
+     * Look up a role
+     * @param name The role name
+     * @return The role entity
+     */
+    public Role get(ERole name) {
+        Role role = roles.get(name);
+        if (role == null) {
+            // Requests can arrive before DataInitializer has run
+            load();
+            role = roles.get(name);
+        }
+        if (role == null) {
+            throw new RuntimeException("Error: Role " + name + " is not found.");
+        }
+        return role;
+    }
+
+    public boolean contains(ERole name) {
+        return roles.containsKey(name);
+    }
+}
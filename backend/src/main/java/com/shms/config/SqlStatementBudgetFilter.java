@@ -0,0 +1,56 @@
+package com.shms.config;
+
+import java.io.IOException;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+/**
+ * Flags requests that run more SQL statements than the configured budget.
+ * Listing endpoints use fetch plans that need a fixed number of statements
+ * whatever the page size, so a request over budget points at an N+1 regression.
+ */
+@Component
+public class SqlStatementBudgetFilter extends OncePerRequestFilter {
+    private static final Logger logger = LoggerFactory.getLogger(SqlStatementBudgetFilter.class);
+
+    @Autowired
+    private SqlStatementCounter sqlStatementCounter;
+
+    @Value("${shms.sql-budget.enabled}")
+    private boolean enabled;
+
+    @Value("${shms.sql-budget.max-statements}")
+    private int maxStatements;
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        if (!enabled) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        sqlStatementCounter.start();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            int statements = sqlStatementCounter.stop();
+            if (statements > maxStatements) {
+                logger.warn("{} {} ran {} SQL statements (budget {})", request.getMethod(),
+                        request.getRequestURI(), statements, maxStatements);
+            } else {
+                logger.debug("{} {} ran {} SQL statements", request.getMethod(), request.getRequestURI(), statements);
+            }
+        }
+    }
+}
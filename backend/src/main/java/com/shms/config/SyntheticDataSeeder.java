@@ -0,0 +1,452 @@
+package com.shms.config;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.LongFunction;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import org.postgresql.PGConnection;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.shms.model.ERole;
+import com.shms.security.encryption.EncryptionService;
+import com.shms.security.encryption.StreamingRecordCipher;
+import com.shms.security.encryption.WrappedPatientKey;
+
+/**
+ * Generates production-scale synthetic data when the {@code seed} profile is active:
+ * doctors, then patients with their own wrapped AES keys, doctor assignments and
+ * records sealed in the chunked record format.
+ *
+ * <p>Rows are generated in parallel and bulk-loaded with {@code COPY}, one chunk per
+ * transaction. Every row is derived from {@code shms.seed.random-seed} and its index,
+ * so the data is the same however the work is split. Keys, salts and IVs come from
+ * that seed too and are only fit for test data; record ciphertext still uses fresh
+ * nonces. The index of the next chunk is committed with the chunk in
+ * {@code synthetic_seed_progress}, so an interrupted run resumes where it stopped.
+ *
+ * <p>All seeded users share {@code shms.seed.password}, hashed with BCrypt once;
+ * hashing millions of passwords individually would dominate the run.
+ */
+@Component
+@Profile("seed")
+public class SyntheticDataSeeder {
+    private static final Logger logger = LoggerFactory.getLogger(SyntheticDataSeeder.class);
+
+    private static final String DOCTOR_PREFIX = "seed_d";
+    private static final String PATIENT_PREFIX = "seed_p";
+    private static final String DOCTORS_PHASE = "doctors";
+    private static final String PATIENTS_PHASE = "patients";
+
+    // Matches the allocationSize of the entity sequences; see IdSequenceAlignment
+    private static final int ID_BLOCK = 50;
+
+    private static final long DOCTOR_STREAM = 0x9E3779B97F4A7C15L;
+    private static final long PATIENT_STREAM = 0xC2B2AE3D27D4EB4FL;
+
+    private static final String[] FIRST_NAMES = { "Aarav", "Maya", "Liam", "Sofia", "Noah", "Priya", "Ethan",
+            "Amara", "Lucas", "Zara", "Omar", "Chloe", "Ravi", "Elena", "Kenji", "Fatima" };
+    private static final String[] LAST_NAMES = { "Sharma", "Smith", "Garcia", "Chen", "Okafor", "Muller", "Rossi",
+            "Khan", "Silva", "Novak", "Tanaka", "Dubois", "Mehta", "Kowalski", "Haddad", "Jensen" };
+    private static final String[] SPECIALTIES = { "Cardiology", "Dermatology", "Endocrinology", "General Practice",
+            "Neurology", "Oncology", "Orthopedics", "Pediatrics", "Psychiatry", "Radiology" };
+    private static final String[] RECORD_TYPES = { "LAB_RESULT", "PRESCRIPTION", "DIAGNOSIS", "IMAGING_REPORT",
+            "DISCHARGE_SUMMARY" };
+    private static final String[] CLINICAL_WORDS = { "patient", "reports", "stable", "blood", "pressure", "within",
+            "normal", "range", "follow-up", "advised", "dosage", "adjusted", "no", "acute", "findings", "history",
+            "of", "mild", "chronic", "symptoms", "resolved", "review", "in", "weeks" };
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    @Autowired
+    private EncryptionService encryptionService;
+
+    @Autowired
+    private StreamingRecordCipher streamingRecordCipher;
+
+    @Autowired
+    private RoleRegistry roleRegistry;
+
+    @Value("${shms.seed.doctors}")
+    private long doctors;
+
+    @Value("${shms.seed.patients}")
+    private long patients;
+
+    @Value("${shms.seed.doctors-per-patient}")
+    private int doctorsPerPatient;
+
+    @Value("${shms.seed.records-per-patient}")
+    private int recordsPerPatient;
+
+    @Value("${shms.seed.record-size}")
+    private int recordSize;
+
+    @Value("${shms.seed.random-seed}")
+    private long randomSeed;
+
+    @Value("${shms.seed.chunk-size}")
+    private int chunkSize;
+
+    @Value("${shms.seed.parallelism}")
+    private int parallelism;
+
+    @Value("${shms.seed.password}")
+    private String password;
+
+    public void seed() {
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS synthetic_seed_progress ("
+                + "phase VARCHAR(20) PRIMARY KEY, next_index BIGINT NOT NULL, random_seed BIGINT NOT NULL)");
+
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        String passwordHash = passwordEncoder.encode(password);
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            runPhase(DOCTORS_PHASE, doctors, pool, transactionTemplate, this::generateDoctor,
+                    rows -> writeDoctors(rows, passwordHash));
+
+            long[] doctorIds = loadDoctorIds();
+            runPhase(PATIENTS_PHASE, patients, pool, transactionTemplate, this::generatePatient,
+                    rows -> writePatients(rows, passwordHash, doctorIds));
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private <T> void runPhase(String phase, long total, ForkJoinPool pool, TransactionTemplate transactionTemplate,
+                              LongFunction<T> generator, ChunkWriter<T> writer) {
+        long next = startIndex(phase);
+        if (next >= total) {
+            logger.info("Synthetic {} already seeded ({})", phase, total);
+            return;
+        }
+
+        // The next chunk is generated while the current one is copied in
+        CompletableFuture<List<T>> pending = generateChunk(pool, next, Math.min(next + chunkSize, total), generator);
+        while (next < total) {
+            long end = Math.min(next + chunkSize, total);
+            List<T> rows = pending.join();
+            if (end < total) {
+                pending = generateChunk(pool, end, Math.min(end + chunkSize, total), generator);
+            }
+
+            transactionTemplate.executeWithoutResult(status -> {
+                writer.write(rows);
+                jdbcTemplate.update("UPDATE synthetic_seed_progress SET next_index = ? WHERE phase = ?", end, phase);
+            });
+            next = end;
+            logger.info("Seeded {} of {} synthetic {}", end, total, phase);
+        }
+    }
+
+    private long startIndex(String phase) {
+        List<Map<String, Object>> progress = jdbcTemplate.queryForList(
+                "SELECT next_index, random_seed FROM synthetic_seed_progress WHERE phase = ?", phase);
+        if (progress.isEmpty()) {
+            jdbcTemplate.update("INSERT INTO synthetic_seed_progress (phase, next_index, random_seed) VALUES (?, 0, ?)",
+                    phase, randomSeed);
+            return 0;
+        }
+
+        long seededWith = ((Number) progress.get(0).get("random_seed")).longValue();
+        if (seededWith != randomSeed) {
+            throw new RuntimeException("Synthetic " + phase + " were seeded with random seed " + seededWith
+                    + "; resume with the same shms.seed.random-seed or drop the seeded data first");
+        }
+        return ((Number) progress.get(0).get("next_index")).longValue();
+    }
+
+    private static <T> CompletableFuture<List<T>> generateChunk(ForkJoinPool pool, long from, long to,
+                                                                LongFunction<T> generator) {
+        // A parallel stream started inside the pool runs on the pool's workers
+        return CompletableFuture.supplyAsync(() -> LongStream.range(from, to)
+                .parallel()
+                .mapToObj(generator)
+                .collect(Collectors.toList()), pool);
+    }
+
+    private DoctorRow generateDoctor(long index) {
+        SplittableRandom random = new SplittableRandom(randomSeed ^ (DOCTOR_STREAM * (index + 1)));
+        DoctorRow row = new DoctorRow();
+        row.index = index;
+        row.firstName = pick(random, FIRST_NAMES);
+        row.lastName = pick(random, LAST_NAMES);
+        row.specialty = pick(random, SPECIALTIES);
+        return row;
+    }
+
+    private PatientRow generatePatient(long index) {
+        SplittableRandom random = new SplittableRandom(randomSeed ^ (PATIENT_STREAM * (index + 1)));
+        PatientRow row = new PatientRow();
+        row.index = index;
+        row.firstName = pick(random, FIRST_NAMES);
+        row.lastName = pick(random, LAST_NAMES);
+        row.dateOfBirth = LocalDateTime.of(1940, 1, 1, 0, 0).plusDays(random.nextInt(365 * 65)).toLocalDate()
+                .toString();
+        row.contactNumber = String.format("+1-555-%03d-%04d", random.nextInt(1000), random.nextInt(10000));
+        row.address = (1 + random.nextInt(9999)) + " " + pick(random, LAST_NAMES) + " Street";
+
+        byte[] aesKey = bytes(random, 32);
+        byte[] iv = bytes(random, 12);
+        byte[] salt = bytes(random, 16);
+        try {
+            // Same wrapping as AuthServiceImpl.registerPatient, so the seeded password unlocks the key
+            WrappedPatientKey patientKey = encryptionService.wrapPatientKey(aesKey, password, salt, iv);
+            row.encryptedAesKey = patientKey.getEncryptedAesKey();
+            row.initializationVector = patientKey.getInitializationVector();
+            row.passwordSalt = patientKey.getPasswordSalt();
+
+            row.doctorIndexes = doctors == 0 ? new int[0] : random.ints(0, (int) doctors).distinct()
+                    .limit(Math.min(doctorsPerPatient, doctors)).toArray();
+
+            row.records = new ArrayList<>(recordsPerPatient);
+            for (int i = 0; i < recordsPerPatient; i++) {
+                RecordRow record = new RecordRow();
+                record.recordType = pick(random, RECORD_TYPES);
+                record.fileName = "record-" + (i + 1) + ".txt";
+                record.createdAt = LocalDateTime.of(2015, 1, 1, 0, 0).plusSeconds(random.nextLong(10L * 365 * 86400));
+                record.doctorIndex = row.doctorIndexes.length > 0 && random.nextBoolean()
+                        ? row.doctorIndexes[random.nextInt(row.doctorIndexes.length)]
+                        : -1;
+
+                ByteArrayOutputStream sealed = new ByteArrayOutputStream(recordSize + recordSize / 64 + 64);
+                streamingRecordCipher.encrypt(new ByteArrayInputStream(clinicalText(random, index, i)), sealed,
+                        encryptionService.toSecretKey(aesKey), StreamingRecordCipher.DEFAULT_CHUNK_SIZE);
+                record.ciphertext = sealed.toByteArray();
+                row.records.add(record);
+            }
+        } catch (Exception e) {
+            throw new RuntimeException("Could not generate synthetic patient " + index + ": " + e.getMessage(), e);
+        }
+        return row;
+    }
+
+    private void writeDoctors(List<DoctorRow> rows, String passwordHash) {
+        long[] userIds = reserveIds("users_seq", rows.size());
+        long[] doctorIds = reserveIds("doctors_seq", rows.size());
+        Long roleId = roleRegistry.get(ERole.ROLE_DOCTOR).getId();
+
+        StringBuilder users = new StringBuilder();
+        StringBuilder userRoles = new StringBuilder();
+        StringBuilder doctorRows = new StringBuilder();
+        for (int i = 0; i < rows.size(); i++) {
+            DoctorRow row = rows.get(i);
+            String username = DOCTOR_PREFIX + row.index;
+            csv(users, userIds[i], username, passwordHash, username + "@seed.shms.local", row.firstName, row.lastName);
+            csv(userRoles, userIds[i], roleId);
+            csv(doctorRows, doctorIds[i], userIds[i], row.specialty, "SEED-" + row.index);
+        }
+
+        copy("users (id, username, password, email, first_name, last_name)", users);
+        copy("user_roles (user_id, role_id)", userRoles);
+        copy("doctors (id, user_id, specialty, license_number)", doctorRows);
+    }
+
+    private void writePatients(List<PatientRow> rows, String passwordHash, long[] doctorIds) {
+        long[] userIds = reserveIds("users_seq", rows.size());
+        long[] patientIds = reserveIds("patients_seq", rows.size());
+        long[] recordIds = reserveIds("medical_records_seq", rows.size() * recordsPerPatient);
+        Long roleId = roleRegistry.get(ERole.ROLE_PATIENT).getId();
+
+        StringBuilder users = new StringBuilder();
+        StringBuilder userRoles = new StringBuilder();
+        StringBuilder patientRows = new StringBuilder();
+        StringBuilder assignments = new StringBuilder();
+        StringBuilder records = new StringBuilder();
+        StringBuilder contents = new StringBuilder();
+        int nextRecord = 0;
+        for (int i = 0; i < rows.size(); i++) {
+            PatientRow row = rows.get(i);
+            String username = PATIENT_PREFIX + row.index;
+            csv(users, userIds[i], username, passwordHash, username + "@seed.shms.local", row.firstName, row.lastName);
+            csv(userRoles, userIds[i], roleId);
+            csv(patientRows, patientIds[i], userIds[i], row.encryptedAesKey, row.initializationVector,
+                    row.passwordSalt, row.dateOfBirth, row.contactNumber, row.address);
+            for (int doctorIndex : row.doctorIndexes) {
+                csv(assignments, doctorIds[doctorIndex], patientIds[i]);
+            }
+            for (RecordRow record : row.records) {
+                long recordId = recordIds[nextRecord++];
+                Long doctorId = record.doctorIndex >= 0 ? doctorIds[record.doctorIndex] : null;
+                csv(records, recordId, patientIds[i], doctorId, record.recordType, (long) record.ciphertext.length,
+                        record.fileName, "text/plain", record.createdAt, record.createdAt);
+                csv(contents, recordId, "\\x" + hex(record.ciphertext));
+            }
+        }
+
+        copy("users (id, username, password, email, first_name, last_name)", users);
+        copy("user_roles (user_id, role_id)", userRoles);
+        copy("patients (id, user_id, encrypted_aes_key, initialization_vector, password_salt, date_of_birth, "
+                + "contact_number, address)", patientRows);
+        copy("doctor_patients (doctor_id, patient_id)", assignments);
+        copy("medical_records (id, patient_id, doctor_id, record_type, content_length, file_name, content_type, "
+                + "created_at, updated_at)", records);
+
+        // Content is a large object, which COPY cannot create; stage it as bytea and convert in one statement
+        jdbcTemplate.execute("CREATE TEMP TABLE seed_record_contents (record_id BIGINT, data BYTEA) ON COMMIT DROP");
+        copy("seed_record_contents (record_id, data)", contents);
+        jdbcTemplate.update("INSERT INTO medical_record_contents (record_id, data) "
+                + "SELECT record_id, lo_from_bytea(0, data) FROM seed_record_contents");
+    }
+
+    private long[] loadDoctorIds() {
+        // Ordering by length first sorts seed_d2 before seed_d10
+        List<Long> ids = jdbcTemplate.queryForList(
+                "SELECT d.id FROM doctors d JOIN users u ON u.id = d.user_id "
+                        + "WHERE u.username LIKE '" + DOCTOR_PREFIX.replace("_", "\\_") + "%' "
+                        + "ORDER BY length(u.username), u.username",
+                Long.class);
+        if (ids.size() != doctors) {
+            throw new RuntimeException("Expected " + doctors + " synthetic doctors but found " + ids.size());
+        }
+        return ids.stream().mapToLong(Long::longValue).toArray();
+    }
+
+    /**
+     * Take ids from an entity sequence the way Hibernate's pooled optimizer does:
+     * each nextval owns the block of {@link #ID_BLOCK} ids ending at it.
+     */
+    private long[] reserveIds(String sequence, int count) {
+        long[] ids = new long[count];
+        int filled = 0;
+        while (filled < count) {
+            int blocks = (count - filled + ID_BLOCK - 1) / ID_BLOCK;
+            List<Long> values = jdbcTemplate.queryForList(
+                    "SELECT nextval('" + sequence + "') FROM generate_series(1, ?)", Long.class, blocks);
+            for (long value : values) {
+                for (long id = Math.max(1, value - ID_BLOCK + 1); id <= value && filled < count; id++) {
+                    ids[filled++] = id;
+                }
+            }
+        }
+        return ids;
+    }
+
+    private void copy(String target, StringBuilder rows) {
+        if (rows.length() == 0) {
+            return;
+        }
+        jdbcTemplate.execute((ConnectionCallback<Long>) connection -> {
+            try {
+                return connection.unwrap(PGConnection.class).getCopyAPI()
+                        .copyIn("COPY " + target + " FROM STDIN (FORMAT csv)", new StringReader(rows.toString()));
+            } catch (IOException e) {
+                throw new RuntimeException("Could not copy into " + target + ": " + e.getMessage(), e);
+            }
+        });
+    }
+
+    private static void csv(StringBuilder out, Object... values) {
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                out.append(',');
+            }
+            Object value = values[i];
+            if (value == null) {
+                continue;
+            }
+            String text = value.toString();
+            if (text.indexOf(',') >= 0 || text.indexOf('"') >= 0 || text.indexOf('\n') >= 0) {
+                out.append('"').append(text.replace("\"", "\"\"")).append('"');
+            } else {
+                out.append(text);
+            }
+        }
+        out.append('\n');
+    }
+
+    private byte[] clinicalText(SplittableRandom random, long patientIndex, int recordIndex) {
+        StringBuilder text = new StringBuilder(recordSize + 32)
+                .append("Synthetic record ").append(recordIndex + 1)
+                .append(" for patient ").append(patientIndex).append('\n');
+        while (text.length() < recordSize) {
+            text.append(pick(random, CLINICAL_WORDS)).append(random.nextInt(12) == 0 ? ".\n" : " ");
+        }
+        text.setLength(recordSize);
+        return text.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static String pick(SplittableRandom random, String[] values) {
+        return values[random.nextInt(values.length)];
+    }
+
+    private static byte[] bytes(SplittableRandom random, int length) {
+        byte[] bytes = new byte[length];
+        for (int i = 0; i < length; i++) {
+            bytes[i] = (byte) random.nextInt(256);
+        }
+        return bytes;
+    }
+
+    private static String hex(byte[] bytes) {
+        char[] digits = "0123456789abcdef".toCharArray();
+        char[] hex = new char[bytes.length * 2];
+        for (int i = 0; i < bytes.length; i++) {
+            hex[i * 2] = digits[(bytes[i] >> 4) & 0xF];
+            hex[i * 2 + 1] = digits[bytes[i] & 0xF];
+        }
+        return new String(hex);
+    }
+
+    @FunctionalInterface
+    private interface ChunkWriter<T> {
+        void write(List<T> rows);
+    }
+
+    private static final class DoctorRow {
+        private long index;
+        private String firstName;
+        private String lastName;
+        private String specialty;
+    }
+
+    private static final class PatientRow {
+        private long index;
+        private String firstName;
+        private String lastName;
+        private String dateOfBirth;
+        private String contactNumber;
+        private String address;
+        private String encryptedAesKey;
+        private String initializationVector;
+        private String passwordSalt;
+        private int[] doctorIndexes;
+        private List<RecordRow> records;
+    }
+
+    private static final class RecordRow {
+        private String recordType;
+        private String fileName;
+        private LocalDateTime createdAt;
+        private int doctorIndex;
+        private byte[] ciphertext;
+    }
+}
@@ -1,24 +1,34 @@
 package com.shms.controller;
 
-import java.util.List;
+import java.io.IOException;
+import java.net.URI;
+import java.util.Map;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.CrossOrigin;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
-import com.shms.model.Doctor;
-import com.shms.model.Patient;
-import com.shms.model.User;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.shms.model.UserPurgeJob;
 import com.shms.payload.response.MessageResponse;
-import com.shms.repository.DoctorRepository;
-import com.shms.repository.PatientRepository;
-import com.shms.repository.UserRepository;
+import com.shms.security.encryption.PatientKeyVault;
+import com.shms.security.services.PasswordHashingExecutor;
+import com.shms.security.services.UserDetailsServiceImpl;
+import com.shms.service.AdminListingService;
+import com.shms.service.PatientImportService;
+import com.shms.service.UserPurgeService;
 
 @CrossOrigin(origins = "*", maxAge = 3600)
 @RestController
@@ -27,55 +37,120 @@ import com.shms.repository.UserRepository;
 public class AdminController {
     
     @Autowired
-    private UserRepository userRepository;
+    private AdminListingService adminListingService;
+    
+    @Autowired
+    private UserDetailsServiceImpl userDetailsService;
+    
+    @Autowired
+    private PatientKeyVault patientKeyVault;
+    
+    @Autowired
+    private UserPurgeService userPurgeService;
     
     @Autowired
-    private DoctorRepository doctorRepository;
+    private PatientImportService patientImportService;
     
     @Autowired
-    private PatientRepository patientRepository;
+    private PasswordHashingExecutor passwordHashingExecutor;
+    
+    // Listings are written straight to the response from a database cursor; see AdminListingService
     
     @GetMapping("/users")
-    public ResponseEntity<List<User>> getAllUsers() {
-        List<User> users = userRepository.findAll();
-        return ResponseEntity.ok(users);
+    public void getAllUsers(@RequestParam(value = "cursor", required = false) String cursor,
+                            @RequestParam(value = "size", required = false) Integer size,
+                            HttpServletResponse response) throws IOException {
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        adminListingService.writeUsers(cursor, size, response.getOutputStream());
     }
     
     @GetMapping("/doctors")
-    public ResponseEntity<List<Doctor>> getAllDoctors() {
-        List<Doctor> doctors = doctorRepository.findAll();
-        return ResponseEntity.ok(doctors);
+    public void getAllDoctors(@RequestParam(value = "cursor", required = false) String cursor,
+                              @RequestParam(value = "size", required = false) Integer size,
+                              HttpServletResponse response) throws IOException {
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        adminListingService.writeDoctors(cursor, size, response.getOutputStream());
     }
     
     @GetMapping("/patients")
-    public ResponseEntity<List<Patient>> getAllPatients() {
-        List<Patient> patients = patientRepository.findAll();
-        return ResponseEntity.ok(patients);
+    public void getAllPatients(@RequestParam(value = "cursor", required = false) String cursor,
+                               @RequestParam(value = "size", required = false) Integer size,
+                               HttpServletResponse response) throws IOException {
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        adminListingService.writePatients(cursor, size, response.getOutputStream());
+    }
+    
+    /**
+     * Import patients from NDJSON (one signup request per line) and stream back
+     * an NDJSON report of failed rows followed by a summary line. Written on the
+     * request thread rather than as an async body, because large imports outlast
+     * the async request timeout.
+     */
+    @PostMapping(value = "/patients/import", consumes = "application/x-ndjson")
+    public void importPatients(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        response.setContentType("application/x-ndjson");
+        patientImportService.importPatients(request.getInputStream(), response.getOutputStream());
     }
     
+    /**
+     * Queue the deletion of a user with their profile and records. Answers 202 with
+     * the purge job at once; poll /purge-jobs/{id} for progress.
+     */
     @DeleteMapping("/users/{id}")
-    public ResponseEntity<MessageResponse> deleteUser(@PathVariable Long id) {
+    public ResponseEntity<?> deleteUser(@PathVariable Long id) {
         try {
-            User user = userRepository.findById(id)
-                    .orElseThrow(() -> new RuntimeException("User not found with id: " + id));
-            
-            // Check if it's the admin user (by username)
-            if (user.getUsername().equals("admin")) {
-                return ResponseEntity.badRequest()
-                        .body(new MessageResponse("Cannot delete admin user"));
-            }
-            
-            // Delete associated doctor or patient profiles
-            doctorRepository.findByUser(user).ifPresent(doctor -> doctorRepository.delete(doctor));
-            patientRepository.findByUser(user).ifPresent(patient -> patientRepository.delete(patient));
-            
-            // Delete the user
-            userRepository.delete(user);
-            
-            return ResponseEntity.ok(new MessageResponse("User deleted successfully"));
+            UserPurgeJob job = userPurgeService.requestPurge(id);
+            return ResponseEntity.accepted()
+                    .location(URI.create("/api/admin/purge-jobs/" + job.getId()))
+                    .body(job);
         } catch (Exception e) {
             return ResponseEntity.badRequest()
                     .body(new MessageResponse("Error: " + e.getMessage()));
         }
     }
-} 
\ No newline at end of file
+    
+    @GetMapping("/purge-jobs/{id}")
+    public ResponseEntity<?> getPurgeJob(@PathVariable Long id) {
+        try {
+            return ResponseEntity.ok(userPurgeService.getJob(id));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest()
+                    .body(new MessageResponse("Error: " + e.getMessage()));
+        }
+    }
+    
+    @GetMapping("/cache-stats")
+    public ResponseEntity<Map<String, Object>> getCacheStats() {
+        return ResponseEntity.ok(Map.of(
+                "principals", describeCache(userDetailsService.stats(), userDetailsService.size()),
+                "patientKeys", describeCache(patientKeyVault.stats(), patientKeyVault.size())));
+    }
+    
+    @GetMapping("/executor-stats")
+    public ResponseEntity<Map<String, Object>> getExecutorStats() {
+        long completed = passwordHashingExecutor.getCompletedCount();
+        return ResponseEntity.ok(Map.of(
+                "passwordHashing", Map.of(
+                        "queueDepth", passwordHashingExecutor.getQueueDepth(),
+                        "activeThreads", passwordHashingExecutor.getActiveCount(),
+                        "completedCount", completed,
+                        "rejectedCount", passwordHashingExecutor.getRejectedCount(),
+                        "averageWaitMillis", averageMillis(passwordHashingExecutor.getTotalWaitNanos(), completed),
+                        "averageExecutionMillis",
+                        averageMillis(passwordHashingExecutor.getTotalExecutionNanos(), completed))));
+    }
+    
+    private static double averageMillis(long totalNanos, long count) {
+        return count == 0 ? 0 : totalNanos / 1_000_000.0 / count;
+    }
+    
+    private Map<String, Object> describeCache(CacheStats stats, long size) {
+        return Map.of(
+                "size", size,
+                "hitRate", stats.hitRate(),
+                "hitCount", stats.hitCount(),
+                "missCount", stats.missCount(),
+                "evictionCount", stats.evictionCount(),
+                "averageLoadMillis", stats.averageLoadPenalty() / 1_000_000);
+    }
+}
\ No newline at end of file
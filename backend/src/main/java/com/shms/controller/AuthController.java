@@ -2,11 +2,14 @@ package com.shms.controller;
 
 import java.util.HashSet;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 
 import javax.validation.Valid;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.CrossOrigin;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
@@ -17,6 +20,8 @@ import com.shms.payload.request.LoginRequest;
 import com.shms.payload.request.SignupRequest;
 import com.shms.payload.response.JwtResponse;
 import com.shms.payload.response.MessageResponse;
+import com.shms.security.services.PasswordHashingExecutor;
+import com.shms.security.services.UserDetailsImpl;
 import com.shms.service.AuthService;
 
 @CrossOrigin(origins = "*", maxAge = 3600)
@@ -26,35 +31,59 @@ public class AuthController {
     @Autowired
     private AuthService authService;
 
+    // Login and registration hash passwords, so they run on the bounded hashing pool
+    @Autowired
+    private PasswordHashingExecutor passwordHashingExecutor;
+
     @PostMapping("/login")
-    public ResponseEntity<?> authenticateUser(@Valid @RequestBody LoginRequest loginRequest) {
-        JwtResponse jwtResponse = authService.authenticateUser(loginRequest);
-        return ResponseEntity.ok(jwtResponse);
+    public CompletableFuture<ResponseEntity<JwtResponse>> authenticateUser(@Valid @RequestBody LoginRequest loginRequest) {
+        return passwordHashingExecutor.submit(() -> {
+            JwtResponse jwtResponse = authService.authenticateUser(loginRequest);
+            return ResponseEntity.ok(jwtResponse);
+        });
     }
 
     @PostMapping("/register")
-    public ResponseEntity<?> registerUser(@Valid @RequestBody SignupRequest signupRequest) {
-        MessageResponse response = authService.registerUser(signupRequest);
-        return ResponseEntity.ok(response);
+    public CompletableFuture<ResponseEntity<MessageResponse>> registerUser(@Valid @RequestBody SignupRequest signupRequest) {
+        return passwordHashingExecutor.submit(() -> {
+            MessageResponse response = authService.registerUser(signupRequest);
+            return ResponseEntity.ok(response);
+        });
     }
 
     @PostMapping("/register/doctor")
-    public ResponseEntity<?> registerDoctor(@Valid @RequestBody SignupRequest signupRequest) {
+    public CompletableFuture<ResponseEntity<MessageResponse>> registerDoctor(@Valid @RequestBody SignupRequest signupRequest) {
         Set<String> roles = new HashSet<>();
         roles.add("doctor");
         signupRequest.setRole(roles);
         
-        MessageResponse response = authService.registerDoctor(signupRequest);
-        return ResponseEntity.ok(response);
+        return passwordHashingExecutor.submit(() -> {
+            MessageResponse response = authService.registerDoctor(signupRequest);
+            return ResponseEntity.ok(response);
+        });
     }
 
     @PostMapping("/register/patient")
-    public ResponseEntity<?> registerPatient(@Valid @RequestBody SignupRequest signupRequest) {
+    public CompletableFuture<ResponseEntity<MessageResponse>> registerPatient(@Valid @RequestBody SignupRequest signupRequest) {
         Set<String> roles = new HashSet<>();
         roles.add("patient");
         signupRequest.setRole(roles);
         
-        MessageResponse response = authService.registerPatient(signupRequest);
+        return passwordHashingExecutor.submit(() -> {
+            MessageResponse response = authService.registerPatient(signupRequest);
+            return ResponseEntity.ok(response);
+        });
+    }
+
+    @PostMapping("/logout")
+    public ResponseEntity<?> logoutUser() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        String sessionId = null;
+        if (authentication != null && authentication.getPrincipal() instanceof UserDetailsImpl) {
+            sessionId = ((UserDetailsImpl) authentication.getPrincipal()).getSessionId();
+        }
+        
+        MessageResponse response = authService.logoutUser(sessionId);
         return ResponseEntity.ok(response);
     }
-} 
\ No newline at end of file
+}
\ No newline at end of file
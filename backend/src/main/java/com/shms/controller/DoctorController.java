@@ -2,6 +2,8 @@ package com.shms.controller;
 
 import java.util.List;
 
+import javax.validation.Valid;
+
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
@@ -11,10 +13,15 @@ import org.springframework.web.bind.annotation.CrossOrigin;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import com.shms.payload.request.BulkAssignmentRequest;
+import com.shms.payload.response.BulkAssignmentResponse;
 import com.shms.payload.response.MessageResponse;
+import com.shms.payload.response.PageResponse;
 import com.shms.payload.response.PatientResponse;
 import com.shms.security.services.UserDetailsImpl;
 import com.shms.service.DoctorService;
@@ -39,8 +46,10 @@ public class DoctorController {
     
     @GetMapping("/available-patients")
     @PreAuthorize("hasRole('DOCTOR') or hasRole('ADMIN')")
-    public ResponseEntity<List<PatientResponse>> getAvailablePatients() {
-        List<PatientResponse> patients = doctorService.getAllPatients();
+    public ResponseEntity<PageResponse<PatientResponse>> getAvailablePatients(
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "size", required = false) Integer size) {
+        PageResponse<PatientResponse> patients = doctorService.getAllPatients(cursor, size);
         return ResponseEntity.ok(patients);
     }
     
@@ -63,4 +72,34 @@ public class DoctorController {
         MessageResponse response = doctorService.unassignPatient(userDetails.getId(), patientId);
         return ResponseEntity.ok(response);
     }
-} 
\ No newline at end of file
+    
+    @PostMapping("/assign")
+    @PreAuthorize("hasRole('DOCTOR') or hasRole('ADMIN')")
+    public ResponseEntity<?> assignPatients(@Valid @RequestBody BulkAssignmentRequest assignmentRequest) {
+        try {
+            Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+            UserDetailsImpl userDetails = (UserDetailsImpl) authentication.getPrincipal();
+            
+            BulkAssignmentResponse response = doctorService.assignPatients(userDetails.getId(),
+                    assignmentRequest.getPatientIds());
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(new MessageResponse("Error: " + e.getMessage()));
+        }
+    }
+    
+    @PostMapping("/unassign")
+    @PreAuthorize("hasRole('DOCTOR') or hasRole('ADMIN')")
+    public ResponseEntity<?> unassignPatients(@Valid @RequestBody BulkAssignmentRequest assignmentRequest) {
+        try {
+            Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+            UserDetailsImpl userDetails = (UserDetailsImpl) authentication.getPrincipal();
+            
+            BulkAssignmentResponse response = doctorService.unassignPatients(userDetails.getId(),
+                    assignmentRequest.getPatientIds());
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(new MessageResponse("Error: " + e.getMessage()));
+        }
+    }
+}
\ No newline at end of file
@@ -1,11 +1,18 @@
 package com.shms.controller;
 
+import java.io.IOException;
 import java.util.List;
 import java.util.Map;
 
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
 import javax.validation.Valid;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
@@ -16,11 +23,22 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.shms.payload.request.BatchDecryptRequest;
+import com.shms.payload.request.KeywordSearchRequest;
 import com.shms.payload.request.MedicalRecordRequest;
+import com.shms.payload.request.RecordPageRequest;
+import com.shms.payload.request.RecordSearchRequest;
+import com.shms.payload.response.DecryptedRecordResponse;
 import com.shms.payload.response.MedicalRecordResponse;
 import com.shms.payload.response.MessageResponse;
+import com.shms.payload.response.PageResponse;
+import com.shms.payload.response.RecordContentStream;
 import com.shms.security.services.UserDetailsImpl;
 import com.shms.service.MedicalRecordService;
 
@@ -31,6 +49,9 @@ public class MedicalRecordController {
     @Autowired
     private MedicalRecordService medicalRecordService;
 
+    @Autowired
+    private ObjectMapper objectMapper;
+
     @PostMapping("/upload")
     @PreAuthorize("hasRole('PATIENT') or hasRole('DOCTOR')")
     public ResponseEntity<?> uploadMedicalRecord(@Valid @RequestBody MedicalRecordRequest recordRequest) {
@@ -41,24 +62,142 @@ public class MedicalRecordController {
         return ResponseEntity.ok(response);
     }
 
-    @GetMapping("/patient/{patientId}")
-    @PreAuthorize("hasRole('PATIENT') or hasRole('DOCTOR') or hasRole('ADMIN')")
-    public ResponseEntity<List<MedicalRecordResponse>> getPatientRecords(@PathVariable Long patientId) {
+    /**
+     * Upload client-encrypted records from NDJSON, one record per line, and stream
+     * back a line per rejected record followed by a summary. Doctors name the patient
+     * with patientId. Read on the request thread like the patient import.
+     */
+    @PostMapping(value = "/upload/bulk", consumes = "application/x-ndjson")
+    @PreAuthorize("hasRole('PATIENT') or hasRole('DOCTOR')")
+    public void uploadMedicalRecords(@RequestParam(value = "patientId", required = false) Long patientId,
+                                     HttpServletRequest request, HttpServletResponse response) throws IOException {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        UserDetailsImpl userDetails = (UserDetailsImpl) authentication.getPrincipal();
+        
+        response.setContentType("application/x-ndjson");
+        try {
+            medicalRecordService.uploadMedicalRecords(patientId, request.getInputStream(), response.getOutputStream(),
+                    userDetails.getId());
+        } catch (RuntimeException e) {
+            ndjsonError(response, e);
+        }
+    }
+
+    @PostMapping(value = "/upload/file", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    @PreAuthorize("hasRole('PATIENT') or hasRole('DOCTOR')")
+    public ResponseEntity<?> uploadMedicalRecordFile(@RequestParam("file") MultipartFile file,
+                                                     @RequestParam("recordType") String recordType,
+                                                     @RequestParam(value = "patientId", required = false) Long patientId,
+                                                     @RequestParam(value = "password", required = false) String password) {
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
         UserDetailsImpl userDetails = (UserDetailsImpl) authentication.getPrincipal();
         
-        List<MedicalRecordResponse> records = medicalRecordService.getPatientRecords(patientId, userDetails.getId());
-        return ResponseEntity.ok(records);
+        MessageResponse response = medicalRecordService.uploadMedicalRecordFile(file, recordType, patientId, password,
+                userDetails.getId(), userDetails.getSessionId());
+        return ResponseEntity.ok(response);
+    }
+
+    @GetMapping("/patient/{patientId}")
+    @PreAuthorize("hasRole('PATIENT') or hasRole('DOCTOR') or hasRole('ADMIN')")
+    public ResponseEntity<?> getPatientRecords(@PathVariable Long patientId, RecordPageRequest pageRequest) {
+        try {
+            Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+            UserDetailsImpl userDetails = (UserDetailsImpl) authentication.getPrincipal();
+            
+            PageResponse<MedicalRecordResponse> records = medicalRecordService.getPatientRecords(patientId,
+                    pageRequest, userDetails.getId());
+            return ResponseEntity.ok(records);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(new MessageResponse("Error: " + e.getMessage()));
+        }
+    }
+
+    @GetMapping("/patient/{patientId}/search")
+    @PreAuthorize("hasRole('PATIENT') or hasRole('DOCTOR') or hasRole('ADMIN')")
+    public ResponseEntity<?> searchPatientRecords(@PathVariable Long patientId, RecordSearchRequest searchRequest) {
+        try {
+            Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+            UserDetailsImpl userDetails = (UserDetailsImpl) authentication.getPrincipal();
+            
+            PageResponse<MedicalRecordResponse> records = medicalRecordService.searchPatientRecords(patientId,
+                    searchRequest, userDetails.getId());
+            return ResponseEntity.ok(records);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(new MessageResponse("Error: " + e.getMessage()));
+        }
+    }
+
+    @PostMapping("/patient/{patientId}/keyword-search")
+    @PreAuthorize("hasRole('PATIENT') or hasRole('DOCTOR')")
+    public ResponseEntity<?> searchPatientRecordsByKeywords(@PathVariable Long patientId,
+                                                            @Valid @RequestBody KeywordSearchRequest searchRequest) {
+        try {
+            Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+            UserDetailsImpl userDetails = (UserDetailsImpl) authentication.getPrincipal();
+            
+            PageResponse<MedicalRecordResponse> records = medicalRecordService.searchPatientRecordsByKeywords(
+                    patientId, searchRequest, userDetails.getId(), userDetails.getSessionId());
+            return ResponseEntity.ok(records);
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(new MessageResponse("Error: " + e.getMessage()));
+        }
     }
 
     @GetMapping("/doctor")
     @PreAuthorize("hasRole('DOCTOR')")
-    public ResponseEntity<List<MedicalRecordResponse>> getDoctorRecords() {
+    public ResponseEntity<?> getDoctorRecords(RecordPageRequest pageRequest) {
+        try {
+            Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+            UserDetailsImpl userDetails = (UserDetailsImpl) authentication.getPrincipal();
+            
+            PageResponse<MedicalRecordResponse> records = medicalRecordService.getDoctorRecords(pageRequest,
+                    userDetails.getId());
+            return ResponseEntity.ok(records);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(new MessageResponse("Error: " + e.getMessage()));
+        }
+    }
+
+    /**
+     * Export a patient's records as NDJSON, with each record's ciphertext in Base64
+     * unless includeContent is false. Written on the request thread like the patient
+     * import, because large exports outlast the async request timeout.
+     */
+    @GetMapping("/export/patient/{patientId}")
+    @PreAuthorize("hasRole('PATIENT') or hasRole('DOCTOR') or hasRole('ADMIN')")
+    public void exportPatientRecords(@PathVariable Long patientId,
+                                     @RequestParam(value = "includeContent", defaultValue = "true") boolean includeContent,
+                                     HttpServletResponse response) throws IOException {
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
         UserDetailsImpl userDetails = (UserDetailsImpl) authentication.getPrincipal();
         
-        List<MedicalRecordResponse> records = medicalRecordService.getDoctorRecords(userDetails.getId());
-        return ResponseEntity.ok(records);
+        startExport(response, "patient-" + patientId + "-records.ndjson");
+        try {
+            medicalRecordService.exportPatientRecords(patientId, includeContent, userDetails.getId(),
+                    response.getOutputStream());
+        } catch (RuntimeException e) {
+            ndjsonError(response, e);
+        }
+    }
+
+    /**
+     * Export the records of every patient assigned to a doctor, grouped by patient
+     */
+    @GetMapping("/export/doctor/{doctorId}")
+    @PreAuthorize("hasRole('DOCTOR') or hasRole('ADMIN')")
+    public void exportDoctorPanelRecords(@PathVariable Long doctorId,
+                                         @RequestParam(value = "includeContent", defaultValue = "true") boolean includeContent,
+                                         HttpServletResponse response) throws IOException {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        UserDetailsImpl userDetails = (UserDetailsImpl) authentication.getPrincipal();
+        
+        startExport(response, "doctor-" + doctorId + "-panel-records.ndjson");
+        try {
+            medicalRecordService.exportDoctorPanelRecords(doctorId, includeContent, userDetails.getId(),
+                    response.getOutputStream());
+        } catch (RuntimeException e) {
+            ndjsonError(response, e);
+        }
     }
 
     @PostMapping("/decrypt/{recordId}")
@@ -68,15 +207,104 @@ public class MedicalRecordController {
             Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
             UserDetailsImpl userDetails = (UserDetailsImpl) authentication.getPrincipal();
             
+            // The password may be omitted once this session has unlocked the patient's key
             String password = requestBody.get("password");
-            if (password == null || password.isEmpty()) {
-                return ResponseEntity.badRequest().body(new MessageResponse("Error: Password is required"));
-            }
             
-            String decryptedContent = medicalRecordService.decryptRecord(recordId, password, userDetails.getId());
+            String decryptedContent = medicalRecordService.decryptRecord(recordId, password,
+                    userDetails.getId(), userDetails.getSessionId());
             return ResponseEntity.ok(Map.of("content", decryptedContent));
         } catch (Exception e) {
             return ResponseEntity.badRequest().body(new MessageResponse("Error: " + e.getMessage()));
         }
     }
-} 
\ No newline at end of file
+
+    @PostMapping("/decrypt")
+    @PreAuthorize("hasRole('PATIENT') or hasRole('DOCTOR')")
+    public ResponseEntity<?> decryptRecords(@Valid @RequestBody BatchDecryptRequest decryptRequest) {
+        try {
+            Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+            UserDetailsImpl userDetails = (UserDetailsImpl) authentication.getPrincipal();
+            
+            List<DecryptedRecordResponse> results = medicalRecordService.decryptRecords(
+                    decryptRequest.getRecordIds(), decryptRequest.getPassword(),
+                    userDetails.getId(), userDetails.getSessionId());
+            return ResponseEntity.ok(results);
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(new MessageResponse("Error: " + e.getMessage()));
+        }
+    }
+
+    @PostMapping("/decrypt/{recordId}/stream")
+    @PreAuthorize("hasRole('PATIENT') or hasRole('DOCTOR')")
+    public ResponseEntity<StreamingResponseBody> streamDecryptedRecord(@PathVariable Long recordId,
+            @RequestBody(required = false) Map<String, String> requestBody) {
+        try {
+            Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+            UserDetailsImpl userDetails = (UserDetailsImpl) authentication.getPrincipal();
+            
+            String password = requestBody != null ? requestBody.get("password") : null;
+            
+            RecordContentStream stream = medicalRecordService.openDecryptedRecord(recordId, password,
+                    userDetails.getId(), userDetails.getSessionId());
+            return streamResponse(stream, recordId);
+        } catch (Exception e) {
+            return streamError(e);
+        }
+    }
+
+    @GetMapping("/{recordId}/content")
+    @PreAuthorize("hasRole('PATIENT') or hasRole('DOCTOR') or hasRole('ADMIN')")
+    public ResponseEntity<StreamingResponseBody> getEncryptedContent(@PathVariable Long recordId) {
+        try {
+            Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+            UserDetailsImpl userDetails = (UserDetailsImpl) authentication.getPrincipal();
+            
+            RecordContentStream stream = medicalRecordService.openEncryptedContent(recordId, userDetails.getId());
+            return streamResponse(stream, recordId);
+        } catch (Exception e) {
+            return streamError(e);
+        }
+    }
+
+    private ResponseEntity<StreamingResponseBody> streamResponse(RecordContentStream stream, Long recordId) {
+        String fileName = stream.getFileName() != null ? stream.getFileName() : "record-" + recordId;
+        MediaType contentType = MediaType.APPLICATION_OCTET_STREAM;
+        if (stream.getContentType() != null) {
+            try {
+                contentType = MediaType.parseMediaType(stream.getContentType());
+            } catch (InvalidMediaTypeException e) {
+                // The stored content type is whatever the uploader sent; serve it as plain bytes
+            }
+        }
+        
+        return ResponseEntity.ok()
+                .contentType(contentType)
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        ContentDisposition.attachment().filename(fileName).build().toString())
+                .body(stream.getBody());
+    }
+
+    private void startExport(HttpServletResponse response, String fileName) {
+        response.setContentType("application/x-ndjson");
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION,
+                ContentDisposition.attachment().filename(fileName).build().toString());
+    }
+
+    private void ndjsonError(HttpServletResponse response, RuntimeException e) throws IOException {
+        // Once lines have been sent the response can only be cut short
+        if (response.isCommitted()) {
+            throw e;
+        }
+        response.reset();
+        response.setStatus(HttpServletResponse.SC_BAD_REQUEST);
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        objectMapper.writeValue(response.getOutputStream(), new MessageResponse("Error: " + e.getMessage()));
+    }
+
+    private ResponseEntity<StreamingResponseBody> streamError(Exception e) {
+        MessageResponse error = new MessageResponse("Error: " + e.getMessage());
+        return ResponseEntity.badRequest()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(out -> objectMapper.writeValue(out, error));
+    }
+}
\ No newline at end of file
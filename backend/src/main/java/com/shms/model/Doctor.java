@@ -9,10 +9,9 @@ import javax.persistence.GeneratedValue;
 import javax.persistence.GenerationType;
 import javax.persistence.Id;
 import javax.persistence.JoinColumn;
-import javax.persistence.JoinTable;
-import javax.persistence.ManyToMany;
 import javax.persistence.OneToMany;
 import javax.persistence.OneToOne;
+import javax.persistence.SequenceGenerator;
 import javax.persistence.Table;
 
 import lombok.AllArgsConstructor;
@@ -26,7 +25,8 @@ import lombok.NoArgsConstructor;
 @Table(name = "doctors")
 public class Doctor {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "doctors_seq")
+    @SequenceGenerator(name = "doctors_seq", sequenceName = "doctors_seq", allocationSize = 50)
     private Long id;
 
     @OneToOne
@@ -42,11 +42,5 @@ public class Doctor {
     @OneToMany(mappedBy = "doctor")
     private List<MedicalRecord> medicalRecords = new ArrayList<>();
 
-    @ManyToMany
-    @JoinTable(
-        name = "doctor_patients",
-        joinColumns = @JoinColumn(name = "doctor_id"),
-        inverseJoinColumns = @JoinColumn(name = "patient_id")
-    )
-    private List<Patient> patients = new ArrayList<>();
+    // Assigned patients are DoctorPatientAssignment rows, not a collection here
 } 
\ No newline at end of file
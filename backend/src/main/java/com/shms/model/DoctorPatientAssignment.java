@@ -0,0 +1,65 @@
+package com.shms.model;
+
+import java.io.Serializable;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.FetchType;
+import javax.persistence.Id;
+import javax.persistence.IdClass;
+import javax.persistence.Index;
+import javax.persistence.JoinColumn;
+import javax.persistence.ManyToOne;
+import javax.persistence.Table;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+
+/**
+ * A patient on a doctor's panel. Each assignment is its own row keyed by
+ * (doctor_id, patient_id), so assigning or unassigning touches exactly one row
+ * however large the panel is. Rows are written by DoctorPatientAssignmentRepository
+ * with ON CONFLICT DO NOTHING, which makes repeated and concurrent assigns harmless,
+ * and foreign keys keep them from pointing at a doctor or patient that is gone.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@IdClass(DoctorPatientAssignment.Key.class)
+@Table(name = "doctor_patients", indexes = {
+    @Index(name = "idx_doctor_patients_patient", columnList = "patient_id")
+})
+public class DoctorPatientAssignment {
+    @Id
+    @Column(name = "doctor_id")
+    private Long doctorId;
+
+    @Id
+    @Column(name = "patient_id")
+    private Long patientId;
+
+    // Read-only; mapped so the schema gets foreign keys to doctors and patients
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "doctor_id", insertable = false, updatable = false)
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    private Doctor doctor;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "patient_id", insertable = false, updatable = false)
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    private Patient patient;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private Long doctorId;
+        private Long patientId;
+    }
+}
@@ -0,0 +1,8 @@
+package com.shms.model;
+
+public enum EPurgeStatus {
+    PENDING,
+    RUNNING,
+    COMPLETED,
+    FAILED
+}
@@ -7,8 +7,10 @@ import javax.persistence.Entity;
 import javax.persistence.GeneratedValue;
 import javax.persistence.GenerationType;
 import javax.persistence.Id;
+import javax.persistence.Index;
 import javax.persistence.JoinColumn;
 import javax.persistence.ManyToOne;
+import javax.persistence.SequenceGenerator;
 import javax.persistence.Table;
 
 import lombok.AllArgsConstructor;
@@ -19,10 +21,17 @@ import lombok.NoArgsConstructor;
 @NoArgsConstructor
 @AllArgsConstructor
 @Entity
-@Table(name = "medical_records")
+@Table(name = "medical_records", indexes = {
+    @Index(name = "idx_medical_records_patient_created", columnList = "patient_id, created_at, id"),
+    @Index(name = "idx_medical_records_patient_type_created", columnList = "patient_id, record_type, created_at, id"),
+    @Index(name = "idx_medical_records_doctor_created", columnList = "doctor_id, created_at, id"),
+    @Index(name = "idx_medical_records_patient_content_type_created", columnList = "patient_id, content_type, created_at, id"),
+    @Index(name = "idx_medical_records_patient_doctor_created", columnList = "patient_id, doctor_id, created_at, id")
+})
 public class MedicalRecord {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "medical_records_seq")
+    @SequenceGenerator(name = "medical_records_seq", sequenceName = "medical_records_seq", allocationSize = 50)
     private Long id;
 
     @ManyToOne
@@ -32,8 +41,9 @@ public class MedicalRecord {
     @Column(name = "record_type")
     private String recordType;
 
-    @Column(name = "encrypted_content", columnDefinition = "TEXT")
-    private String encryptedContent;
+    // Ciphertext lives in MedicalRecordContent; only its size is kept here
+    @Column(name = "content_length")
+    private Long contentLength;
 
     @Column(name = "file_name")
     private String fileName;
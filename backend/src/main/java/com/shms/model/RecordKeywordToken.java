@@ -0,0 +1,50 @@
+package com.shms.model;
+
+import java.io.Serializable;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.IdClass;
+import javax.persistence.Index;
+import javax.persistence.Table;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * One blind index token of a record. Rows hold only ids and keyed hashes, never
+ * keywords. Written in batches by RecordKeywordIndex rather than through JPA.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@IdClass(RecordKeywordToken.Key.class)
+@Table(name = "record_keyword_tokens", indexes = {
+    @Index(name = "idx_record_keyword_tokens_lookup", columnList = "patient_id, token, record_id"),
+    @Index(name = "idx_record_keyword_tokens_record", columnList = "record_id")
+})
+public class RecordKeywordToken {
+    @Id
+    @Column(name = "patient_id")
+    private Long patientId;
+
+    @Id
+    @Column(name = "token")
+    private Long token;
+
+    @Id
+    @Column(name = "record_id")
+    private Long recordId;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private Long patientId;
+        private Long token;
+        private Long recordId;
+    }
+}
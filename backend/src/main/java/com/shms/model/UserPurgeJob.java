@@ -0,0 +1,62 @@
+package com.shms.model;
+
+import java.time.LocalDateTime;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.EnumType;
+import javax.persistence.Enumerated;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.SequenceGenerator;
+import javax.persistence.Table;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * A background deletion of a user and everything they own. Progress is committed
+ * with each chunk, so an unfinished job is resumed after a restart.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "user_purge_jobs", indexes = {
+    @Index(name = "idx_user_purge_jobs_status", columnList = "status"),
+    @Index(name = "idx_user_purge_jobs_user", columnList = "user_id")
+})
+public class UserPurgeJob {
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "user_purge_jobs_seq")
+    @SequenceGenerator(name = "user_purge_jobs_seq", sequenceName = "user_purge_jobs_seq", allocationSize = 50)
+    private Long id;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(nullable = false)
+    private String username;
+
+    @Enumerated(EnumType.STRING)
+    @Column(length = 20, nullable = false)
+    private EPurgeStatus status;
+
+    @Column(name = "records_deleted", nullable = false)
+    private long recordsDeleted;
+
+    @Column(length = 1000)
+    private String error;
+
+    @Column(name = "created_at")
+    private LocalDateTime createdAt;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    @Column(name = "completed_at")
+    private LocalDateTime completedAt;
+}
@@ -0,0 +1,16 @@
+package com.shms.payload.request;
+
+import java.util.List;
+
+import javax.validation.constraints.NotEmpty;
+
+import lombok.Data;
+
+@Data
+public class BatchDecryptRequest {
+    @NotEmpty
+    private List<Long> recordIds;
+    
+    // May be omitted once this session has unlocked the patient's key
+    private String password;
+}
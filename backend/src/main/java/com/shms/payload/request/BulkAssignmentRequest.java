@@ -0,0 +1,13 @@
+package com.shms.payload.request;
+
+import java.util.List;
+
+import javax.validation.constraints.NotEmpty;
+
+import lombok.Data;
+
+@Data
+public class BulkAssignmentRequest {
+    @NotEmpty
+    private List<Long> patientIds;
+}
@@ -0,0 +1,19 @@
+package com.shms.payload.request;
+
+import javax.validation.constraints.NotBlank;
+
+import lombok.Data;
+
+@Data
+public class KeywordSearchRequest {
+    // Records must contain every keyword of the query
+    @NotBlank
+    private String query;
+
+    // May be omitted once this session has unlocked the patient's key
+    private String password;
+
+    private String cursor;
+
+    private Integer size;
+}
@@ -0,0 +1,20 @@
+package com.shms.payload.request;
+
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+
+/**
+ * Metadata search within one patient's records. Adds to the listing filters
+ * (record type, creation date range, cursor and size).
+ */
+@Data
+@EqualsAndHashCode(callSuper = true)
+public class RecordSearchRequest extends RecordPageRequest {
+    // Case-insensitive prefix of the file name
+    private String fileName;
+
+    private String contentType;
+
+    // Doctor profile id of the uploading doctor
+    private Long doctorId;
+}
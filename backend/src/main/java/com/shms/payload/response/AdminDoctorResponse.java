@@ -0,0 +1,24 @@
+package com.shms.payload.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * A doctor as listed on the admin dashboard. Built by a JPQL constructor
+ * expression, so the listing never loads doctor, user or patient entities.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class AdminDoctorResponse {
+    private Long id;
+    private Long userId;
+    private String username;
+    private String email;
+    private String firstName;
+    private String lastName;
+    private String specialty;
+    private String licenseNumber;
+    private Long patientCount;
+}
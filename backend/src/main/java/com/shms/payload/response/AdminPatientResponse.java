@@ -0,0 +1,25 @@
+package com.shms.payload.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * A patient as listed on the admin dashboard. Built by a JPQL constructor
+ * expression, so the listing never loads records or the patient's wrapped key.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class AdminPatientResponse {
+    private Long id;
+    private Long userId;
+    private String username;
+    private String email;
+    private String firstName;
+    private String lastName;
+    private String dateOfBirth;
+    private String contactNumber;
+    private String address;
+    private Long recordCount;
+}
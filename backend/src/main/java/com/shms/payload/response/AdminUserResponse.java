@@ -0,0 +1,23 @@
+package com.shms.payload.response;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * A user as listed on the admin dashboard; roles are given by name.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class AdminUserResponse {
+    private Long id;
+    private String username;
+    private String email;
+    private String firstName;
+    private String lastName;
+    private List<String> roles = new ArrayList<>();
+}
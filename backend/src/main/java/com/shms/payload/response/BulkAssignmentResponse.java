@@ -0,0 +1,21 @@
+package com.shms.payload.response;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Outcome of a bulk assign or unassign. Unchanged patients were already assigned
+ * (or, when unassigning, were not assigned).
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkAssignmentResponse {
+    private int requested;
+    private int changed;
+    private int unchanged;
+    private List<Long> notFound;
+}
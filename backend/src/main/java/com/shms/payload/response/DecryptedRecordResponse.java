@@ -0,0 +1,14 @@
+package com.shms.payload.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DecryptedRecordResponse {
+    private Long recordId;
+    private String content;
+    private String error;
+}
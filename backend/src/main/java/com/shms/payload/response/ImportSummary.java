@@ -0,0 +1,13 @@
+package com.shms.payload.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ImportSummary {
+    private long imported;
+    private long failed;
+}
@@ -3,18 +3,45 @@ package com.shms.payload.response;
 import java.time.LocalDateTime;
 
 import lombok.Data;
+import lombok.NoArgsConstructor;
 
+/**
+ * Record metadata for listings. Built directly by JPQL constructor expressions,
+ * so listing queries never load the record, patient or doctor entities.
+ */
 @Data
+@NoArgsConstructor
 public class MedicalRecordResponse {
     private Long id;
     private Long patientId;
     private String patientName;
     private String recordType;
-    private String encryptedContent;
     private String fileName;
     private String contentType;
+    private Long contentLength;
     private LocalDateTime createdAt;
     private LocalDateTime updatedAt;
     private Long doctorId;
     private String doctorName;
-} 
\ No newline at end of file
+
+    public MedicalRecordResponse(Long id, Long patientId, String patientFirstName, String patientLastName,
+                                 String recordType, String fileName, String contentType, Long contentLength,
+                                 LocalDateTime createdAt, LocalDateTime updatedAt,
+                                 Long doctorId, String doctorFirstName, String doctorLastName) {
+        this.id = id;
+        this.patientId = patientId;
+        if (patientId != null) {
+            this.patientName = patientFirstName + " " + patientLastName;
+        }
+        this.recordType = recordType;
+        this.fileName = fileName;
+        this.contentType = contentType;
+        this.contentLength = contentLength;
+        this.createdAt = createdAt;
+        this.updatedAt = updatedAt;
+        this.doctorId = doctorId;
+        if (doctorId != null) {
+            this.doctorName = doctorFirstName + " " + doctorLastName;
+        }
+    }
+}
\ No newline at end of file
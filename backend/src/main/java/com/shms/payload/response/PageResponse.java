@@ -0,0 +1,36 @@
+package com.shms.payload.response;
+
+import java.util.List;
+import java.util.function.Function;
+
+import com.shms.payload.request.KeysetCursor;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * One page of a keyset-paginated listing. Pass {@code nextCursor} back as the
+ * {@code cursor} parameter to fetch the following page; it is null on the last page.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class PageResponse<T> {
+    private List<T> items;
+    private String nextCursor;
+
+    /**
+     * Build a page from a query that fetched one row more than the page size
+     * @param rows Up to {@code pageSize + 1} rows in page order
+     * @param pageSize Number of rows to return
+     * @param cursorOf Key of a row, used to encode the next cursor
+     */
+    public static <T> PageResponse<T> of(List<T> rows, int pageSize, Function<T, KeysetCursor> cursorOf) {
+        if (rows.size() <= pageSize) {
+            return new PageResponse<>(rows, null);
+        }
+        List<T> items = rows.subList(0, pageSize);
+        return new PageResponse<>(items, cursorOf.apply(items.get(pageSize - 1)).encode());
+    }
+}
@@ -16,4 +16,9 @@ public class PatientResponse {
     private String contactNumber;
     private String address;
     private boolean isAssigned;
+
+    public PatientResponse(Long id, String username, String firstName, String lastName, String email,
+                           String dateOfBirth, String contactNumber, String address) {
+        this(id, username, firstName + " " + lastName, email, dateOfBirth, contactNumber, address, false);
+    }
 } 
\ No newline at end of file
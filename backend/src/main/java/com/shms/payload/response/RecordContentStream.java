@@ -0,0 +1,14 @@
+package com.shms.payload.response;
+
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class RecordContentStream {
+    private String fileName;
+    private String contentType;
+    private StreamingResponseBody body;
+}
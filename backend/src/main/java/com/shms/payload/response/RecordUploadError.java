@@ -0,0 +1,14 @@
+package com.shms.payload.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RecordUploadError {
+    private long line;
+    private String fileName;
+    private String error;
+}
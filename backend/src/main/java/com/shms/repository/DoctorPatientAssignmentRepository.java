@@ -0,0 +1,54 @@
+package com.shms.repository;
+
+import java.util.Collection;
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.shms.model.DoctorPatientAssignment;
+
+@Repository
+public interface DoctorPatientAssignmentRepository
+        extends JpaRepository<DoctorPatientAssignment, DoctorPatientAssignment.Key> {
+    
+    boolean existsByDoctorIdAndPatientId(Long doctorId, Long patientId);
+    
+    @Query("SELECT a.patientId FROM DoctorPatientAssignment a WHERE a.doctorId = :doctorId")
+    List<Long> findPatientIdsByDoctorId(@Param("doctorId") Long doctorId);
+    
+    /**
+     * Assign a patient unless already assigned; safe against concurrent assigns
+     * @return 1 if the row was added, 0 if it already existed
+     */
+    @Modifying
+    @Transactional
+    @Query(value = "INSERT INTO doctor_patients (doctor_id, patient_id) VALUES (:doctorId, :patientId) "
+            + "ON CONFLICT DO NOTHING", nativeQuery = true)
+    int insertIfAbsent(@Param("doctorId") Long doctorId, @Param("patientId") Long patientId);
+    
+    /**
+     * Assign every existing patient of the list in one statement; unknown ids are skipped
+     * @return Number of rows added
+     */
+    @Modifying
+    @Transactional
+    @Query(value = "INSERT INTO doctor_patients (doctor_id, patient_id) "
+            + "SELECT :doctorId, p.id FROM patients p WHERE p.id IN (:patientIds) "
+            + "ON CONFLICT DO NOTHING", nativeQuery = true)
+    int insertAllIfAbsent(@Param("doctorId") Long doctorId, @Param("patientIds") Collection<Long> patientIds);
+    
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM DoctorPatientAssignment a WHERE a.doctorId = :doctorId AND a.patientId = :patientId")
+    int deleteAssignment(@Param("doctorId") Long doctorId, @Param("patientId") Long patientId);
+    
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM DoctorPatientAssignment a WHERE a.doctorId = :doctorId AND a.patientId IN :patientIds")
+    int deleteAssignments(@Param("doctorId") Long doctorId, @Param("patientIds") Collection<Long> patientIds);
+}
@@ -1,14 +1,36 @@
 package com.shms.repository;
 
 import java.util.Optional;
+import java.util.stream.Stream;
 
+import javax.persistence.QueryHint;
+
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import com.shms.model.Doctor;
 import com.shms.model.User;
+import com.shms.payload.response.AdminDoctorResponse;
 
 @Repository
 public interface DoctorRepository extends JpaRepository<Doctor, Long> {
     Optional<Doctor> findByUser(User user);
-} 
\ No newline at end of file
+    
+    Optional<Doctor> findByUserId(Long userId);
+    
+    boolean existsByUserId(Long userId);
+    
+    @QueryHints(@QueryHint(name = org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE, value = UserRepository.STREAM_FETCH_SIZE))
+    @Query("SELECT new com.shms.payload.response.AdminDoctorResponse(d.id, u.id, u.username, u.email, "
+            + "u.firstName, u.lastName, d.specialty, d.licenseNumber, "
+            + "(SELECT COUNT(a) FROM DoctorPatientAssignment a WHERE a.doctorId = d.id)) "
+            + "FROM Doctor d JOIN d.user u WHERE d.id > :afterId ORDER BY d.id")
+    Stream<AdminDoctorResponse> streamAdminPage(@Param("afterId") Long afterId, Pageable pageable);
+    
+    @Query("SELECT d.id FROM Doctor d WHERE d.user.id = :userId")
+    Optional<Long> findIdByUserId(@Param("userId") Long userId);
+}
\ No newline at end of file
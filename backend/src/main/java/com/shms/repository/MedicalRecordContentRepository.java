@@ -0,0 +1,10 @@
+package com.shms.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import com.shms.model.MedicalRecordContent;
+
+@Repository
+public interface MedicalRecordContentRepository extends JpaRepository<MedicalRecordContent, Long> {
+}
@@ -1,17 +1,47 @@
 package com.shms.repository;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
-import com.shms.model.Doctor;
 import com.shms.model.MedicalRecord;
-import com.shms.model.Patient;
+import com.shms.payload.response.MedicalRecordResponse;
 
 @Repository
-public interface MedicalRecordRepository extends JpaRepository<MedicalRecord, Long> {
-    List<MedicalRecord> findByPatient(Patient patient);
-    
-    List<MedicalRecord> findByDoctor(Doctor doctor);
-} 
\ No newline at end of file
+public interface MedicalRecordRepository extends JpaRepository<MedicalRecord, Long>, MedicalRecordRepositoryCustom {
+    String SUMMARY_SELECT = "SELECT new com.shms.payload.response.MedicalRecordResponse("
+            + "r.id, p.id, pu.firstName, pu.lastName, r.recordType, r.fileName, r.contentType, r.contentLength, "
+            + "r.createdAt, r.updatedAt, d.id, du.firstName, du.lastName) "
+            + "FROM MedicalRecord r "
+            + "LEFT JOIN r.patient p LEFT JOIN p.user pu "
+            + "LEFT JOIN r.doctor d LEFT JOIN d.user du ";
+
+    @Query(SUMMARY_SELECT + "WHERE r.id = :recordId")
+    Optional<MedicalRecordResponse> findSummaryById(@Param("recordId") Long recordId);
+
+    @Query(SUMMARY_SELECT + "WHERE r.patient.id = :patientId AND r.id IN :recordIds ORDER BY r.id DESC")
+    List<MedicalRecordResponse> findPatientSummariesByIds(@Param("patientId") Long patientId,
+                                                          @Param("recordIds") Collection<Long> recordIds);
+
+    /**
+     * Authorize a batch of records in one query: a row comes back only for records
+     * owned by the user or by a patient assigned to the user as a doctor
+     */
+    @Query("SELECT r.id AS recordId, p.id AS patientId FROM MedicalRecord r JOIN r.patient p "
+            + "WHERE r.id IN :recordIds AND (p.user.id = :userId OR EXISTS ("
+            + "SELECT 1 FROM DoctorPatientAssignment a, Doctor d "
+            + "WHERE a.doctorId = d.id AND d.user.id = :userId AND a.patientId = p.id))")
+    List<RecordPatient> findReadableRecordPatients(@Param("recordIds") Collection<Long> recordIds,
+                                                   @Param("userId") Long userId);
+
+    interface RecordPatient {
+        Long getRecordId();
+
+        Long getPatientId();
+    }
+}
\ No newline at end of file
@@ -0,0 +1,31 @@
+package com.shms.repository;
+
+import java.util.List;
+
+import com.shms.payload.request.KeysetCursor;
+import com.shms.payload.request.RecordPageRequest;
+import com.shms.payload.request.RecordSearchRequest;
+import com.shms.payload.response.MedicalRecordResponse;
+
+public interface MedicalRecordRepositoryCustom {
+    /**
+     * Keyset page of record metadata, newest first
+     * @param patientId Restrict to this patient, or null
+     * @param doctorId Restrict to records uploaded by this doctor, or null
+     * @param filter Optional record type and [from, to) creation date range
+     * @param after Last row of the previous page, or null for the first page
+     * @param limit Maximum number of rows
+     */
+    List<MedicalRecordResponse> findSummaryPage(Long patientId, Long doctorId, RecordPageRequest filter,
+                                                KeysetCursor after, int limit);
+
+    /**
+     * Keyset page of one patient's record metadata matching a search, newest first
+     * @param patientId Patient whose records are searched
+     * @param search Listing filters plus file name prefix, content type and uploading doctor
+     * @param after Last row of the previous page, or null for the first page
+     * @param limit Maximum number of rows
+     */
+    List<MedicalRecordResponse> findSearchPage(Long patientId, RecordSearchRequest search, KeysetCursor after,
+                                               int limit);
+}
@@ -0,0 +1,82 @@
+package com.shms.repository;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.TypedQuery;
+
+import com.shms.payload.request.KeysetCursor;
+import com.shms.payload.request.RecordPageRequest;
+import com.shms.payload.request.RecordSearchRequest;
+import com.shms.payload.response.MedicalRecordResponse;
+
+public class MedicalRecordRepositoryImpl implements MedicalRecordRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<MedicalRecordResponse> findSummaryPage(Long patientId, Long doctorId, RecordPageRequest filter,
+                                                       KeysetCursor after, int limit) {
+        return findPage(patientId, doctorId, filter, null, after, limit);
+    }
+
+    @Override
+    public List<MedicalRecordResponse> findSearchPage(Long patientId, RecordSearchRequest search, KeysetCursor after,
+                                                      int limit) {
+        return findPage(patientId, search.getDoctorId(), search, search, after, limit);
+    }
+
+    private List<MedicalRecordResponse> findPage(Long patientId, Long doctorId, RecordPageRequest filter,
+                                                 RecordSearchRequest search, KeysetCursor after, int limit) {
+        StringBuilder jpql = new StringBuilder(MedicalRecordRepository.SUMMARY_SELECT).append("WHERE 1 = 1");
+        Map<String, Object> parameters = new HashMap<>();
+
+        if (patientId != null) {
+            jpql.append(" AND r.patient.id = :patientId");
+            parameters.put("patientId", patientId);
+        }
+        if (doctorId != null) {
+            jpql.append(" AND r.doctor.id = :doctorId");
+            parameters.put("doctorId", doctorId);
+        }
+        if (filter.getRecordType() != null && !filter.getRecordType().isEmpty()) {
+            jpql.append(" AND r.recordType = :recordType");
+            parameters.put("recordType", filter.getRecordType());
+        }
+        if (filter.getFrom() != null) {
+            jpql.append(" AND r.createdAt >= :from");
+            parameters.put("from", filter.getFrom());
+        }
+        if (filter.getTo() != null) {
+            jpql.append(" AND r.createdAt < :to");
+            parameters.put("to", filter.getTo());
+        }
+        if (search != null && search.getFileName() != null && !search.getFileName().isEmpty()) {
+            // Prefix match, served by idx_medical_records_patient_file_name (see RecordSearchIndexes)
+            jpql.append(" AND lower(r.fileName) LIKE :fileName ESCAPE '\\'");
+            parameters.put("fileName", escapeLike(search.getFileName().toLowerCase()) + "%");
+        }
+        if (search != null && search.getContentType() != null && !search.getContentType().isEmpty()) {
+            jpql.append(" AND r.contentType = :contentType");
+            parameters.put("contentType", search.getContentType());
+        }
+        if (after != null) {
+            jpql.append(" AND (r.createdAt < :afterCreatedAt OR (r.createdAt = :afterCreatedAt AND r.id < :afterId))");
+            parameters.put("afterCreatedAt", after.getCreatedAt());
+            parameters.put("afterId", after.getId());
+        }
+        jpql.append(" ORDER BY r.createdAt DESC, r.id DESC");
+
+        TypedQuery<MedicalRecordResponse> query = entityManager.createQuery(jpql.toString(), MedicalRecordResponse.class);
+        parameters.forEach(query::setParameter);
+        return query.setMaxResults(limit).getResultList();
+    }
+
+    private static String escapeLike(String value) {
+        return value.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+}
@@ -1,14 +1,51 @@
 package com.shms.repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
+import javax.persistence.QueryHint;
+
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import com.shms.model.Patient;
 import com.shms.model.User;
+import com.shms.payload.response.AdminPatientResponse;
+import com.shms.payload.response.PatientResponse;
 
 @Repository
 public interface PatientRepository extends JpaRepository<Patient, Long> {
+    String RESPONSE_SELECT = "SELECT new com.shms.payload.response.PatientResponse("
+            + "p.id, u.username, u.firstName, u.lastName, u.email, p.dateOfBirth, p.contactNumber, p.address) ";
+    
     Optional<Patient> findByUser(User user);
-} 
\ No newline at end of file
+    
+    Optional<Patient> findByUserId(Long userId);
+    
+    @Query("SELECT p.id FROM Patient p WHERE p.user.id = :userId")
+    Optional<Long> findIdByUserId(@Param("userId") Long userId);
+    
+    @QueryHints(@QueryHint(name = org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE, value = UserRepository.STREAM_FETCH_SIZE))
+    @Query("SELECT new com.shms.payload.response.AdminPatientResponse(p.id, u.id, u.username, u.email, "
+            + "u.firstName, u.lastName, p.dateOfBirth, p.contactNumber, p.address, "
+            + "(SELECT COUNT(r) FROM MedicalRecord r WHERE r.patient.id = p.id)) "
+            + "FROM Patient p JOIN p.user u WHERE p.id > :afterId ORDER BY p.id")
+    Stream<AdminPatientResponse> streamAdminPage(@Param("afterId") Long afterId, Pageable pageable);
+    
+    @Query("SELECT p.id FROM Patient p WHERE p.id IN :patientIds")
+    List<Long> findExistingIds(@Param("patientIds") Collection<Long> patientIds);
+    
+    @Query(RESPONSE_SELECT + "FROM Patient p JOIN p.user u WHERE p.id > :afterId ORDER BY p.id")
+    List<PatientResponse> findResponsePage(@Param("afterId") Long afterId, Pageable pageable);
+    
+    @Query(RESPONSE_SELECT + "FROM Patient p JOIN p.user u WHERE p.id IN ("
+            + "SELECT a.patientId FROM DoctorPatientAssignment a, Doctor d "
+            + "WHERE a.doctorId = d.id AND d.user.id = :doctorUserId) ORDER BY p.id")
+    List<PatientResponse> findResponsesByDoctorUserId(@Param("doctorUserId") Long doctorUserId);
+}
\ No newline at end of file
@@ -0,0 +1,31 @@
+package com.shms.repository;
+
+import java.util.Collection;
+import java.util.List;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import com.shms.model.RecordKeywordToken;
+
+@Repository
+public interface RecordKeywordTokenRepository extends JpaRepository<RecordKeywordToken, RecordKeywordToken.Key> {
+
+    /**
+     * Records of a patient that carry every one of the given tokens, newest first,
+     * starting below a record id. A record holds each token at most once, so
+     * matching all of them means the per-record count equals the number of tokens.
+     */
+    @Query("SELECT t.recordId FROM RecordKeywordToken t "
+            + "WHERE t.patientId = :patientId AND t.token IN :tokens AND t.recordId < :beforeRecordId "
+            + "GROUP BY t.recordId HAVING COUNT(t.token) = :tokenCount "
+            + "ORDER BY t.recordId DESC")
+    List<Long> findRecordIdsWithAllTokens(@Param("patientId") Long patientId,
+                                          @Param("tokens") Collection<Long> tokens,
+                                          @Param("tokenCount") long tokenCount,
+                                          @Param("beforeRecordId") Long beforeRecordId,
+                                          Pageable pageable);
+}
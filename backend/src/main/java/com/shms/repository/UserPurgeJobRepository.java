@@ -0,0 +1,28 @@
+package com.shms.repository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import com.shms.model.EPurgeStatus;
+import com.shms.model.UserPurgeJob;
+
+@Repository
+public interface UserPurgeJobRepository extends JpaRepository<UserPurgeJob, Long> {
+    Optional<UserPurgeJob> findFirstByUserIdAndStatusIn(Long userId, Collection<EPurgeStatus> statuses);
+    
+    @Query("SELECT j.id FROM UserPurgeJob j WHERE j.status IN :statuses ORDER BY j.id")
+    List<Long> findIdsByStatusIn(@Param("statuses") Collection<EPurgeStatus> statuses);
+    
+    // Runs inside the chunk's transaction so progress commits with the deletes
+    @Modifying
+    @Query("UPDATE UserPurgeJob j SET j.recordsDeleted = j.recordsDeleted + :deleted, j.updatedAt = CURRENT_TIMESTAMP "
+            + "WHERE j.id = :jobId")
+    int addRecordsDeleted(@Param("jobId") Long jobId, @Param("deleted") long deleted);
+}
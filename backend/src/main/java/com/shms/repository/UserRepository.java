@@ -1,17 +1,61 @@
 package com.shms.repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
+
+import javax.persistence.QueryHint;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import com.shms.model.User;
 
 @Repository
 public interface UserRepository extends JpaRepository<User, Long> {
+    /** Rows fetched per round trip by the streaming admin listings */
+    String STREAM_FETCH_SIZE = "100";
+    
     Optional<User> findByUsername(String username);
     
     Boolean existsByUsername(String username);
     
     Boolean existsByEmail(String email);
-} 
\ No newline at end of file
+    
+    /**
+     * A page of users after the given id, one row per role, ordered by user id.
+     * The page is limited in a subquery so a user's roles are never split across pages.
+     */
+    @QueryHints(@QueryHint(name = org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE, value = STREAM_FETCH_SIZE))
+    @Query(value = "SELECT u.id AS \"id\", u.username AS \"username\", u.email AS \"email\", "
+            + "u.first_name AS \"firstName\", u.last_name AS \"lastName\", r.name AS \"role\" "
+            + "FROM (SELECT id, username, email, first_name, last_name FROM users "
+            + "WHERE id > :afterId ORDER BY id LIMIT :limit) u "
+            + "LEFT JOIN user_roles ur ON ur.user_id = u.id LEFT JOIN roles r ON r.id = ur.role_id "
+            + "ORDER BY u.id, r.name", nativeQuery = true)
+    Stream<UserRoleRow> streamAdminPage(@Param("afterId") Long afterId, @Param("limit") int limit);
+    
+    @Query("SELECT u.username FROM User u WHERE u.username IN :usernames")
+    List<String> findExistingUsernames(@Param("usernames") Collection<String> usernames);
+    
+    @Query("SELECT u.email FROM User u WHERE u.email IN :emails")
+    List<String> findExistingEmails(@Param("emails") Collection<String> emails);
+    
+    interface UserRoleRow {
+        Long getId();
+        
+        String getUsername();
+        
+        String getEmail();
+        
+        String getFirstName();
+        
+        String getLastName();
+        
+        String getRole();
+    }
+}
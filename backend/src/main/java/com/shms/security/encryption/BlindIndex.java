@@ -0,0 +1,64 @@
+package com.shms.security.encryption;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+import org.springframework.stereotype.Component;
+
+/**
+ * Keyed blind index tokens for keyword search over encrypted records.
+ * A token is the first 8 bytes of HMAC-SHA256(index key, keyword). The index key is
+ * derived from the patient's AES key, so tokens can only be computed, or matched
+ * against a query, by someone who has unlocked that patient's key, and equal
+ * keywords of different patients give unrelated tokens.
+ */
+@Component
+public class BlindIndex {
+
+    private static final String HMAC_SHA256 = "HmacSHA256";
+    private static final byte[] INDEX_KEY_LABEL = "shms-keyword-index-v1".getBytes(StandardCharsets.UTF_8);
+
+    // Mac is not thread-safe, so each thread keeps its own
+    private static final ThreadLocal<Mac> MAC = ThreadLocal.withInitial(() -> {
+        try {
+            return Mac.getInstance(HMAC_SHA256);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    });
+
+    /**
+     * Compute the tokens of a set of keywords
+     * @param aesKey The patient's raw AES key
+     * @param keywords Normalised keywords, see {@link KeywordCollector}
+     * @return One token per keyword
+     */
+    public Set<Long> tokens(byte[] aesKey, Collection<String> keywords) throws GeneralSecurityException {
+        Mac mac = MAC.get();
+        byte[] indexKey = hmac(mac, aesKey, INDEX_KEY_LABEL);
+        try {
+            mac.init(new SecretKeySpec(indexKey, HMAC_SHA256));
+            Set<Long> tokens = new HashSet<>(keywords.size() * 2);
+            for (String keyword : keywords) {
+                tokens.add(ByteBuffer.wrap(mac.doFinal(keyword.getBytes(StandardCharsets.UTF_8))).getLong());
+            }
+            return tokens;
+        } finally {
+            Arrays.fill(indexKey, (byte) 0);
+        }
+    }
+
+    private static byte[] hmac(Mac mac, byte[] key, byte[] data) throws GeneralSecurityException {
+        mac.init(new SecretKeySpec(key, HMAC_SHA256));
+        return mac.doFinal(data);
+    }
+}
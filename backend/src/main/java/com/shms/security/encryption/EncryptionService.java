@@ -1,10 +1,15 @@
 package com.shms.security.encryption;
 
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
 import java.security.NoSuchAlgorithmException;
 import java.security.SecureRandom;
 import java.security.spec.InvalidKeySpecException;
+import java.util.Arrays;
 import java.util.Base64;
 
+import javax.annotation.PostConstruct;
 import javax.crypto.Cipher;
 import javax.crypto.KeyGenerator;
 import javax.crypto.SecretKey;
@@ -13,8 +18,13 @@ import javax.crypto.spec.GCMParameterSpec;
 import javax.crypto.spec.PBEKeySpec;
 import javax.crypto.spec.SecretKeySpec;
 
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
 @Service
 public class EncryptionService {
     
@@ -27,13 +37,56 @@ public class EncryptionService {
     private static final int PBKDF2_KEY_LENGTH = 256; // bits
     private static final int SALT_LENGTH = 16; // bytes
     
+    public static final int GCM_TAG_BYTES = GCM_TAG_LENGTH / 8;
+    
+    private static final SecureRandom RANDOM = new SecureRandom();
+    
+    // Cipher and SecretKeyFactory are not thread-safe, so each thread keeps its own
+    private static final ThreadLocal<Cipher> GCM_CIPHER = ThreadLocal.withInitial(EncryptionService::newGcmCipher);
+    private static final ThreadLocal<SecretKeyFactory> PBKDF2_FACTORY = ThreadLocal.withInitial(() -> {
+        try {
+            return SecretKeyFactory.getInstance(PBKDF2_ALGORITHM);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    });
+    
+    // Payload size classes for the AES timers; a fixed set keeps the tag cardinality low
+    private static final int SMALL_PAYLOAD = 4 * 1024;
+    private static final int MEDIUM_PAYLOAD = 1024 * 1024;
+    private static final String[] SIZE_CLASSES = { "small", "medium", "large" };
+    
+    @Autowired
+    private MeterRegistry meterRegistry;
+    
+    private Timer[] encryptTimers;
+    private Timer[] decryptTimers;
+    private DistributionSummary encryptBytes;
+    private DistributionSummary decryptBytes;
+    private Timer pbkdf2Timer;
+    private Timer wrapTimer;
+    private Timer unwrapTimer;
+    
+    @PostConstruct
+    public void registerMeters() {
+        encryptTimers = aesTimers("encrypt");
+        decryptTimers = aesTimers("decrypt");
+        encryptBytes = payloadSummary("encrypt");
+        decryptBytes = payloadSummary("decrypt");
+        pbkdf2Timer = Timer.builder("shms.crypto.pbkdf2")
+                .description("PBKDF2 key derivation")
+                .register(meterRegistry);
+        wrapTimer = keyTimer("wrap");
+        unwrapTimer = keyTimer("unwrap");
+    }
+    
     /**
      * Generate a new AES-256 key
      * @return Base64 encoded string of the key
      */
     public String generateAESKey() throws NoSuchAlgorithmException {
         KeyGenerator keyGenerator = KeyGenerator.getInstance(AES);
-        keyGenerator.init(256);
+        keyGenerator.init(256, RANDOM);
         SecretKey key = keyGenerator.generateKey();
         return Base64.getEncoder().encodeToString(key.getEncoded());
     }
@@ -44,8 +97,7 @@ public class EncryptionService {
      */
     public String generateIV() {
         byte[] iv = new byte[GCM_IV_LENGTH];
-        SecureRandom random = new SecureRandom();
-        random.nextBytes(iv);
+        RANDOM.nextBytes(iv);
         return Base64.getEncoder().encodeToString(iv);
     }
     
@@ -55,29 +107,114 @@ public class EncryptionService {
      */
     public String generateSalt() {
         byte[] salt = new byte[SALT_LENGTH];
-        SecureRandom random = new SecureRandom();
-        random.nextBytes(salt);
+        RANDOM.nextBytes(salt);
         return Base64.getEncoder().encodeToString(salt);
     }
     
+    /**
+     * Build a key object once so it can be reused across calls
+     * @param keyBytes Raw AES key
+     * @return AES key
+     */
+    public SecretKey toSecretKey(byte[] keyBytes) {
+        return new SecretKeySpec(keyBytes, AES);
+    }
+    
+    /**
+     * Build a key object once so it can be reused across calls
+     * @param keyStr Base64 encoded AES key
+     * @return AES key
+     */
+    public SecretKey toSecretKey(String keyStr) {
+        return toSecretKey(Base64.getDecoder().decode(keyStr));
+    }
+    
+    /**
+     * Encrypt data using AES-256 GCM
+     * @param data Data to encrypt
+     * @param key AES key
+     * @param iv Initialization vector, never reused with the same key
+     * @return Ciphertext followed by the authentication tag
+     */
+    public byte[] encrypt(byte[] data, SecretKey key, byte[] iv) throws GeneralSecurityException {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        try {
+            return initCipher(Cipher.ENCRYPT_MODE, key, iv).doFinal(data);
+        } finally {
+            recordAes(sample, encryptTimers, encryptBytes, data.length);
+        }
+    }
+    
+    /**
+     * Decrypt data using AES-256 GCM
+     * @param encryptedData Ciphertext followed by the authentication tag
+     * @param key AES key
+     * @param iv Initialization vector
+     * @return Decrypted data
+     */
+    public byte[] decrypt(byte[] encryptedData, SecretKey key, byte[] iv) throws GeneralSecurityException {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        try {
+            return initCipher(Cipher.DECRYPT_MODE, key, iv).doFinal(encryptedData);
+        } finally {
+            recordAes(sample, decryptTimers, decryptBytes, encryptedData.length);
+        }
+    }
+    
+    /**
+     * Encrypt into a caller-supplied buffer using AES-256 GCM
+     * @param input Data to encrypt, consumed from its position to its limit
+     * @param output Buffer with at least {@link #ciphertextLength(int)} bytes remaining
+     * @param key AES key
+     * @param iv Initialization vector, never reused with the same key
+     * @return Number of bytes written to output
+     */
+    public int encrypt(ByteBuffer input, ByteBuffer output, SecretKey key, byte[] iv) throws GeneralSecurityException {
+        int length = input.remaining();
+        Timer.Sample sample = Timer.start(meterRegistry);
+        try {
+            return initCipher(Cipher.ENCRYPT_MODE, key, iv).doFinal(input, output);
+        } finally {
+            recordAes(sample, encryptTimers, encryptBytes, length);
+        }
+    }
+    
+    /**
+     * Decrypt into a caller-supplied buffer using AES-256 GCM
+     * @param input Ciphertext followed by the tag, consumed from its position to its limit
+     * @param output Buffer with at least {@link #plaintextLength(int)} bytes remaining
+     * @param key AES key
+     * @param iv Initialization vector
+     * @return Number of bytes written to output
+     */
+    public int decrypt(ByteBuffer input, ByteBuffer output, SecretKey key, byte[] iv) throws GeneralSecurityException {
+        int length = input.remaining();
+        Timer.Sample sample = Timer.start(meterRegistry);
+        try {
+            return initCipher(Cipher.DECRYPT_MODE, key, iv).doFinal(input, output);
+        } finally {
+            recordAes(sample, decryptTimers, decryptBytes, length);
+        }
+    }
+    
+    public static int ciphertextLength(int plaintextLength) {
+        return plaintextLength + GCM_TAG_BYTES;
+    }
+    
+    public static int plaintextLength(int ciphertextLength) {
+        return ciphertextLength - GCM_TAG_BYTES;
+    }
+    
     /**
      * Encrypt data using AES-256 GCM
      * @param data Data to encrypt
      * @param keyStr Base64 encoded AES key
-     * @param ivStr Base64 encoded initialization vector
+     * @param ivStr Base64 encoded initialization vector, never reused with the same key
      * @return Base64 encoded encrypted data
      */
     public String encrypt(String data, String keyStr, String ivStr) throws Exception {
-        byte[] keyBytes = Base64.getDecoder().decode(keyStr);
-        byte[] ivBytes = Base64.getDecoder().decode(ivStr);
-        
-        SecretKey key = new SecretKeySpec(keyBytes, AES);
-        GCMParameterSpec spec = new GCMParameterSpec(GCM_TAG_LENGTH, ivBytes);
-        
-        Cipher cipher = Cipher.getInstance(AES_GCM_NOPADDING);
-        cipher.init(Cipher.ENCRYPT_MODE, key, spec);
-        
-        byte[] encryptedData = cipher.doFinal(data.getBytes());
+        byte[] encryptedData = encrypt(data.getBytes(StandardCharsets.UTF_8), toSecretKey(keyStr),
+                Base64.getDecoder().decode(ivStr));
         return Base64.getEncoder().encodeToString(encryptedData);
     }
     
@@ -89,18 +226,31 @@ public class EncryptionService {
      * @return Decrypted data
      */
     public String decrypt(String encryptedDataStr, String keyStr, String ivStr) throws Exception {
-        byte[] encryptedData = Base64.getDecoder().decode(encryptedDataStr);
-        byte[] keyBytes = Base64.getDecoder().decode(keyStr);
-        byte[] ivBytes = Base64.getDecoder().decode(ivStr);
-        
-        SecretKey key = new SecretKeySpec(keyBytes, AES);
-        GCMParameterSpec spec = new GCMParameterSpec(GCM_TAG_LENGTH, ivBytes);
-        
-        Cipher cipher = Cipher.getInstance(AES_GCM_NOPADDING);
-        cipher.init(Cipher.DECRYPT_MODE, key, spec);
-        
-        byte[] decryptedData = cipher.doFinal(encryptedData);
-        return new String(decryptedData);
+        return decrypt(encryptedDataStr, toSecretKey(keyStr), ivStr);
+    }
+    
+    /**
+     * Decrypt data using AES-256 GCM with a raw key
+     * @param encryptedDataStr Base64 encoded encrypted data
+     * @param keyBytes Raw AES key
+     * @param ivStr Base64 encoded initialization vector
+     * @return Decrypted data
+     */
+    public String decrypt(String encryptedDataStr, byte[] keyBytes, String ivStr) throws Exception {
+        return decrypt(encryptedDataStr, toSecretKey(keyBytes), ivStr);
+    }
+    
+    /**
+     * Decrypt data using AES-256 GCM with a pre-built key
+     * @param encryptedDataStr Base64 encoded encrypted data
+     * @param key AES key
+     * @param ivStr Base64 encoded initialization vector
+     * @return Decrypted data
+     */
+    public String decrypt(String encryptedDataStr, SecretKey key, String ivStr) throws Exception {
+        byte[] decryptedData = decrypt(Base64.getDecoder().decode(encryptedDataStr), key,
+                Base64.getDecoder().decode(ivStr));
+        return new String(decryptedData, StandardCharsets.UTF_8);
     }
     
     /**
@@ -112,7 +262,12 @@ public class EncryptionService {
      * @return Encrypted AES key
      */
     public String encryptAESKey(String aesKeyStr, String passwordDerivedKeyStr, String ivStr) throws Exception {
-        return encrypt(aesKeyStr, passwordDerivedKeyStr, ivStr);
+        Timer.Sample sample = Timer.start(meterRegistry);
+        try {
+            return encrypt(aesKeyStr, passwordDerivedKeyStr, ivStr);
+        } finally {
+            sample.stop(wrapTimer);
+        }
     }
     
     /**
@@ -123,7 +278,78 @@ public class EncryptionService {
      * @return Decrypted AES key
      */
     public String decryptAESKey(String encryptedAesKeyStr, String passwordDerivedKeyStr, String ivStr) throws Exception {
-        return decrypt(encryptedAesKeyStr, passwordDerivedKeyStr, ivStr);
+        Timer.Sample sample = Timer.start(meterRegistry);
+        try {
+            return decrypt(encryptedAesKeyStr, passwordDerivedKeyStr, ivStr);
+        } finally {
+            sample.stop(unwrapTimer);
+        }
+    }
+    
+    /**
+     * Generate a new AES key for a patient and wrap it with their password
+     * @param password The patient's password
+     * @return The wrapped key with its IV and salt
+     */
+    public WrappedPatientKey newPatientKey(String password) throws Exception {
+        byte[] aesKey = Base64.getDecoder().decode(generateAESKey());
+        try {
+            return wrapPatientKey(aesKey, password);
+        } finally {
+            Arrays.fill(aesKey, (byte) 0);
+        }
+    }
+    
+    /**
+     * Wrap a patient's AES key with a key derived from their password, under a
+     * fresh salt and IV
+     * @param aesKey Raw AES key
+     * @param password The patient's password
+     * @return The wrapped key with its IV and salt
+     */
+    public WrappedPatientKey wrapPatientKey(byte[] aesKey, String password) throws Exception {
+        return wrapPatientKey(aesKey, password, Base64.getDecoder().decode(generateSalt()),
+                Base64.getDecoder().decode(generateIV()));
+    }
+    
+    /**
+     * Wrap a patient's AES key with a key derived from their password, under the
+     * given salt and IV. Callers other than test data generators should let
+     * {@link #wrapPatientKey(byte[], String)} pick them.
+     * @param aesKey Raw AES key
+     * @param password The patient's password
+     * @param salt Raw PBKDF2 salt
+     * @param iv Raw AES-GCM IV
+     * @return The wrapped key with its IV and salt
+     */
+    public WrappedPatientKey wrapPatientKey(byte[] aesKey, String password, byte[] salt, byte[] iv)
+            throws Exception {
+        String encodedIv = Base64.getEncoder().encodeToString(iv);
+        byte[] passwordDerivedKey = deriveKeyFromPassword(password.toCharArray(), salt);
+        try {
+            String encryptedAesKey = encryptAESKey(Base64.getEncoder().encodeToString(aesKey),
+                    Base64.getEncoder().encodeToString(passwordDerivedKey), encodedIv);
+            return new WrappedPatientKey(encryptedAesKey, encodedIv, Base64.getEncoder().encodeToString(salt));
+        } finally {
+            Arrays.fill(passwordDerivedKey, (byte) 0);
+        }
+    }
+    
+    /**
+     * Derive a key from a password using PBKDF2
+     * @param password The password
+     * @param salt The salt
+     * @return Raw key bytes derived from the password
+     */
+    public byte[] deriveKeyFromPassword(char[] password, byte[] salt) throws InvalidKeySpecException {
+        PBEKeySpec spec = new PBEKeySpec(password, salt, PBKDF2_ITERATIONS, PBKDF2_KEY_LENGTH);
+        Timer.Sample sample = Timer.start(meterRegistry);
+        try {
+            return PBKDF2_FACTORY.get().generateSecret(spec).getEncoded();
+        } finally {
+            sample.stop(pbkdf2Timer);
+            spec.clearPassword();
+        }
     }
     
     /**
@@ -133,18 +359,7 @@ public class EncryptionService {
      * @return A key derived from the password (Base64 encoded)
      */
     public String deriveKeyFromPassword(String password, String salt) throws NoSuchAlgorithmException, InvalidKeySpecException {
-        byte[] saltBytes = Base64.getDecoder().decode(salt);
-        
-        PBEKeySpec spec = new PBEKeySpec(
-            password.toCharArray(),
-            saltBytes,
-            PBKDF2_ITERATIONS,
-            PBKDF2_KEY_LENGTH
-        );
-        
-        SecretKeyFactory factory = SecretKeyFactory.getInstance(PBKDF2_ALGORITHM);
-        byte[] keyBytes = factory.generateSecret(spec).getEncoded();
-        
+        byte[] keyBytes = deriveKeyFromPassword(password.toCharArray(), Base64.getDecoder().decode(salt));
         return Base64.getEncoder().encodeToString(keyBytes);
     }
     
@@ -162,4 +377,53 @@ public class EncryptionService {
             return Base64.getEncoder().encodeToString(password.getBytes());
         }
     }
+    
+    private Timer[] aesTimers(String operation) {
+        Timer[] timers = new Timer[SIZE_CLASSES.length];
+        for (int i = 0; i < SIZE_CLASSES.length; i++) {
+            timers[i] = Timer.builder("shms.crypto.aes")
+                    .description("AES-GCM encryption and decryption")
+                    .tag("operation", operation)
+                    .tag("size", SIZE_CLASSES[i])
+                    .register(meterRegistry);
+        }
+        return timers;
+    }
+    
+    private DistributionSummary payloadSummary(String operation) {
+        return DistributionSummary.builder("shms.crypto.aes.payload")
+                .description("AES-GCM input size")
+                .baseUnit("bytes")
+                .tag("operation", operation)
+                .register(meterRegistry);
+    }
+    
+    private Timer keyTimer(String operation) {
+        return Timer.builder("shms.crypto.key")
+                .description("Patient key wrapping with a password-derived key")
+                .tag("operation", operation)
+                .register(meterRegistry);
+    }
+    
+    private static void recordAes(Timer.Sample sample, Timer[] timers, DistributionSummary bytes, int length) {
+        int sizeClass = length < SMALL_PAYLOAD ? 0 : length < MEDIUM_PAYLOAD ? 1 : 2;
+        sample.stop(timers[sizeClass]);
+        bytes.record(length);
+    }
+    
+    private static Cipher initCipher(int mode, SecretKey key, byte[] iv) throws GeneralSecurityException {
+        GCMParameterSpec spec = new GCMParameterSpec(GCM_TAG_LENGTH, iv);
+        // GCM rejects encrypting twice with the same key and IV; callers supply a fresh IV
+        Cipher cipher = GCM_CIPHER.get();
+        cipher.init(mode, key, spec);
+        return cipher;
+    }
+    
+    private static Cipher newGcmCipher() {
+        try {
+            return Cipher.getInstance(AES_GCM_NOPADDING);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+    }
 } 
\ No newline at end of file
@@ -0,0 +1,110 @@
+package com.shms.security.encryption;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.text.Normalizer;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Splits text into normalised keywords as it streams past, so a record can be
+ * tokenised while it is being encrypted. A keyword is a run of letters and digits;
+ * bytes of multi-byte UTF-8 characters count as letters. Keywords are NFKC
+ * normalised and lower-cased, and kept if they are 3 to 64 characters long.
+ */
+public class KeywordCollector {
+
+    public static final int MIN_LENGTH = 3;
+    public static final int MAX_LENGTH = 64;
+
+    // UTF-8 needs at most four bytes per character
+    private static final int MAX_WORD_BYTES = MAX_LENGTH * 4;
+
+    private final int maxKeywords;
+    private final Set<String> keywords = new LinkedHashSet<>();
+    private final ByteArrayOutputStream word = new ByteArrayOutputStream(MAX_WORD_BYTES);
+    private boolean oversized;
+
+    public KeywordCollector(int maxKeywords) {
+        this.maxKeywords = maxKeywords;
+    }
+
+    /**
+     * Split a search query the same way stored records were split
+     * @param text Query text
+     * @return Distinct normalised keywords
+     */
+    public static Set<String> keywordsOf(String text) {
+        KeywordCollector collector = new KeywordCollector(Integer.MAX_VALUE);
+        for (byte b : text.getBytes(StandardCharsets.UTF_8)) {
+            collector.accept(b & 0xFF);
+        }
+        collector.endWord();
+        return collector.getKeywords();
+    }
+
+    /**
+     * Wrap a stream so every byte read through it is also tokenised
+     * @param in Plaintext
+     * @return Stream returning the same bytes
+     */
+    public InputStream tee(InputStream in) {
+        return new FilterInputStream(in) {
+            @Override
+            public int read() throws IOException {
+                int b = super.read();
+                if (b < 0) {
+                    endWord();
+                } else {
+                    accept(b);
+                }
+                return b;
+            }
+
+            @Override
+            public int read(byte[] buffer, int offset, int length) throws IOException {
+                int read = super.read(buffer, offset, length);
+                if (read < 0) {
+                    endWord();
+                }
+                for (int i = 0; i < read; i++) {
+                    accept(buffer[offset + i] & 0xFF);
+                }
+                return read;
+            }
+        };
+    }
+
+    public Set<String> getKeywords() {
+        endWord();
+        return Collections.unmodifiableSet(keywords);
+    }
+
+    private void accept(int b) {
+        boolean letter = (b >= 'a' && b <= 'z') || (b >= 'A' && b <= 'Z') || (b >= '0' && b <= '9') || b >= 0x80;
+        if (!letter) {
+            endWord();
+        } else if (word.size() < MAX_WORD_BYTES) {
+            word.write(b);
+        } else {
+            oversized = true;
+        }
+    }
+
+    private void endWord() {
+        if (word.size() > 0 && !oversized && keywords.size() < maxKeywords) {
+            String keyword = Normalizer.normalize(new String(word.toByteArray(), StandardCharsets.UTF_8),
+                    Normalizer.Form.NFKC).toLowerCase(Locale.ROOT);
+            if (keyword.length() >= MIN_LENGTH && keyword.length() <= MAX_LENGTH) {
+                keywords.add(keyword);
+            }
+        }
+        word.reset();
+        oversized = false;
+    }
+}
@@ -0,0 +1,141 @@
+package com.shms.security.encryption;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Objects;
+
+import javax.annotation.PreDestroy;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Scheduler;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+/**
+ * In-memory vault of unwrapped patient AES keys.
+ * Keys are bound to the JWT session that unlocked them, so a decrypt in the same
+ * session skips the PBKDF2 derivation and the key unwrap. Entries are bounded in
+ * number, expire after a fixed TTL or when idle, and are zeroized when removed.
+ */
+@Component
+public class PatientKeyVault implements MeterBinder {
+
+    private final Cache<VaultKey, byte[]> keys;
+
+    public PatientKeyVault(@Value("${shms.key-vault.max-entries}") long maxEntries,
+                           @Value("${shms.key-vault.ttl-seconds}") long ttlSeconds,
+                           @Value("${shms.key-vault.idle-seconds}") long idleSeconds) {
+        this.keys = Caffeine.newBuilder()
+                .maximumSize(maxEntries)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .expireAfterAccess(Duration.ofSeconds(idleSeconds))
+                .scheduler(Scheduler.systemScheduler())
+                .executor(Runnable::run)
+                .<VaultKey, byte[]>removalListener((key, value, cause) -> zeroize(value))
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * Look up the unwrapped key of a patient for a session
+     * @param sessionId The JWT session id
+     * @param patientId The patient id
+     * @return A copy of the raw key that the caller must zeroize, or null on a miss
+     */
+    public byte[] get(String sessionId, Long patientId) {
+        if (sessionId == null) {
+            return null;
+        }
+        byte[] key = keys.getIfPresent(new VaultKey(sessionId, patientId));
+        return key != null ? key.clone() : null;
+    }
+
+    /**
+     * Store the unwrapped key of a patient for a session
+     * @param sessionId The JWT session id
+     * @param patientId The patient id
+     * @param key The raw key; the vault keeps its own copy
+     */
+    public void put(String sessionId, Long patientId, byte[] key) {
+        if (sessionId == null) {
+            return;
+        }
+        keys.put(new VaultKey(sessionId, patientId), key.clone());
+    }
+
+    /**
+     * Remove and zeroize every key unlocked by a session
+     * @param sessionId The JWT session id
+     */
+    public void evictSession(String sessionId) {
+        if (sessionId == null) {
+            return;
+        }
+        keys.asMap().keySet().removeIf(key -> key.sessionId.equals(sessionId));
+    }
+
+    /**
+     * Remove and zeroize every key held for a patient, across all sessions
+     * @param patientId The patient id
+     */
+    public void evictPatient(Long patientId) {
+        keys.asMap().keySet().removeIf(key -> key.patientId.equals(patientId));
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, keys, "patientKeyVault");
+    }
+
+    public CacheStats stats() {
+        return keys.stats();
+    }
+
+    public long size() {
+        return keys.estimatedSize();
+    }
+
+    @PreDestroy
+    public void clear() {
+        keys.invalidateAll();
+        keys.cleanUp();
+    }
+
+    private static void zeroize(byte[] key) {
+        if (key != null) {
+            Arrays.fill(key, (byte) 0);
+        }
+    }
+
+    static final class VaultKey {
+        private final String sessionId;
+        private final Long patientId;
+
+        VaultKey(String sessionId, Long patientId) {
+            this.sessionId = sessionId;
+            this.patientId = patientId;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o)
+                return true;
+            if (o == null || getClass() != o.getClass())
+                return false;
+            VaultKey other = (VaultKey) o;
+            return sessionId.equals(other.sessionId) && patientId.equals(other.patientId);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(sessionId, patientId);
+        }
+    }
+}
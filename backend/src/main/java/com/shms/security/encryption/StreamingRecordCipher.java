@@ -0,0 +1,194 @@
+package com.shms.security.encryption;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PushbackInputStream;
+import java.nio.ByteBuffer;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.util.Arrays;
+
+import javax.annotation.PostConstruct;
+import javax.crypto.Cipher;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.GCMParameterSpec;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Chunked AES-256 GCM format for large medical records.
+ *
+ * <pre>
+ * header: magic "SHMC" | version (1 byte) | chunk size (4 bytes) | record nonce (7 bytes)
+ * chunk:  ciphertext (chunk size bytes, shorter for the last chunk) | tag (16 bytes)
+ * </pre>
+ *
+ * Each chunk is sealed with the nonce {@code record nonce | chunk index | last flag}
+ * and the header as associated data, so chunks cannot be reordered, dropped or
+ * truncated at a chunk boundary. Memory use is one chunk regardless of record size.
+ */
+@Component
+public class StreamingRecordCipher {
+
+    public static final int DEFAULT_CHUNK_SIZE = 64 * 1024;
+
+    private static final byte[] MAGIC = { 'S', 'H', 'M', 'C' };
+    private static final byte VERSION = 1;
+    private static final int RECORD_NONCE_LENGTH = 7;
+    private static final int HEADER_LENGTH = MAGIC.length + 1 + 4 + RECORD_NONCE_LENGTH;
+    private static final int MAX_CHUNK_SIZE = 16 * 1024 * 1024;
+    private static final String AES_GCM_NOPADDING = "AES/GCM/NoPadding";
+    private static final int GCM_TAG_LENGTH = 128;
+    private static final int GCM_IV_LENGTH = 12;
+
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private Timer encryptTimer;
+    private Timer decryptTimer;
+
+    @PostConstruct
+    public void registerMeters() {
+        encryptTimer = streamTimer("encrypt");
+        decryptTimer = streamTimer("decrypt");
+    }
+
+    /**
+     * Check whether stored ciphertext uses the chunked format
+     * @param data The start of the ciphertext
+     * @return true if the data begins with a chunked-format header
+     */
+    public static boolean isChunked(byte[] data) {
+        return data.length >= HEADER_LENGTH
+                && Arrays.equals(Arrays.copyOf(data, MAGIC.length), MAGIC)
+                && data[MAGIC.length] == VERSION;
+    }
+
+    /**
+     * Encrypt a stream into the chunked format
+     * @param in Plaintext
+     * @param out Destination for the header and sealed chunks
+     * @param key AES key
+     * @param chunkSize Plaintext bytes per chunk
+     */
+    public void encrypt(InputStream in, OutputStream out, SecretKey key, int chunkSize)
+            throws IOException, GeneralSecurityException {
+        if (chunkSize <= 0 || chunkSize > MAX_CHUNK_SIZE) {
+            throw new IllegalArgumentException("Invalid chunk size: " + chunkSize);
+        }
+
+        byte[] recordNonce = new byte[RECORD_NONCE_LENGTH];
+        RANDOM.nextBytes(recordNonce);
+        byte[] header = ByteBuffer.allocate(HEADER_LENGTH)
+                .put(MAGIC).put(VERSION).putInt(chunkSize).put(recordNonce)
+                .array();
+        out.write(header);
+
+        Cipher cipher = Cipher.getInstance(AES_GCM_NOPADDING);
+        PushbackInputStream source = new PushbackInputStream(in, 1);
+        byte[] plain = new byte[chunkSize];
+        byte[] sealed = new byte[chunkSize + GCM_TAG_LENGTH / 8];
+
+        // Includes time spent reading and writing the streams, which is usually the database
+        Timer.Sample sample = Timer.start(meterRegistry);
+        try {
+            for (int index = 0; ; index++) {
+                int read = source.readNBytes(plain, 0, chunkSize);
+                boolean last = read < chunkSize || isExhausted(source);
+
+                cipher.init(Cipher.ENCRYPT_MODE, key, chunkSpec(recordNonce, index, last));
+                cipher.updateAAD(header);
+                int sealedLength = cipher.doFinal(plain, 0, read, sealed, 0);
+                out.write(sealed, 0, sealedLength);
+
+                if (last) {
+                    break;
+                }
+            }
+        } finally {
+            sample.stop(encryptTimer);
+            Arrays.fill(plain, (byte) 0);
+        }
+    }
+
+    /**
+     * Decrypt a chunked stream, writing each chunk as soon as it is authenticated
+     * @param in Header and sealed chunks
+     * @param out Destination for the plaintext
+     * @param key AES key
+     */
+    public void decrypt(InputStream in, OutputStream out, SecretKey key)
+            throws IOException, GeneralSecurityException {
+        byte[] header = new byte[HEADER_LENGTH];
+        if (in.readNBytes(header, 0, HEADER_LENGTH) != HEADER_LENGTH || !isChunked(header)) {
+            throw new IOException("Not a chunked record");
+        }
+        ByteBuffer headerBuffer = ByteBuffer.wrap(header, MAGIC.length + 1, HEADER_LENGTH - MAGIC.length - 1);
+        int chunkSize = headerBuffer.getInt();
+        if (chunkSize <= 0 || chunkSize > MAX_CHUNK_SIZE) {
+            throw new IOException("Invalid chunk size: " + chunkSize);
+        }
+        byte[] recordNonce = new byte[RECORD_NONCE_LENGTH];
+        headerBuffer.get(recordNonce);
+
+        Cipher cipher = Cipher.getInstance(AES_GCM_NOPADDING);
+        PushbackInputStream source = new PushbackInputStream(in, 1);
+        int sealedChunkSize = chunkSize + GCM_TAG_LENGTH / 8;
+        byte[] sealed = new byte[sealedChunkSize];
+        byte[] plain = new byte[chunkSize];
+
+        Timer.Sample sample = Timer.start(meterRegistry);
+        try {
+            for (int index = 0; ; index++) {
+                int read = source.readNBytes(sealed, 0, sealedChunkSize);
+                if (read < GCM_TAG_LENGTH / 8) {
+                    throw new EOFException("Truncated record");
+                }
+                boolean last = read < sealedChunkSize || isExhausted(source);
+
+                cipher.init(Cipher.DECRYPT_MODE, key, chunkSpec(recordNonce, index, last));
+                cipher.updateAAD(header);
+                int plainLength = cipher.doFinal(sealed, 0, read, plain, 0);
+                out.write(plain, 0, plainLength);
+
+                if (last) {
+                    break;
+                }
+            }
+        } finally {
+            sample.stop(decryptTimer);
+            Arrays.fill(plain, (byte) 0);
+        }
+    }
+
+    private Timer streamTimer(String operation) {
+        return Timer.builder("shms.crypto.stream")
+                .description("Chunked record encryption and decryption, including stream I/O")
+                .tag("operation", operation)
+                .register(meterRegistry);
+    }
+
+    private static boolean isExhausted(PushbackInputStream in) throws IOException {
+        int next = in.read();
+        if (next == -1) {
+            return true;
+        }
+        in.unread(next);
+        return false;
+    }
+
+    private static GCMParameterSpec chunkSpec(byte[] recordNonce, int index, boolean last) {
+        byte[] nonce = ByteBuffer.allocate(GCM_IV_LENGTH)
+                .put(recordNonce).putInt(index).put((byte) (last ? 1 : 0))
+                .array();
+        return new GCMParameterSpec(GCM_TAG_LENGTH, nonce);
+    }
+}
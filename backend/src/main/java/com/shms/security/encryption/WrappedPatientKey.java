@@ -0,0 +1,16 @@
+package com.shms.security.encryption;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * A patient's AES key wrapped with a password-derived key, with the IV and salt
+ * needed to unwrap it, all Base64 encoded as stored on the patient
+ */
+@Data
+@AllArgsConstructor
+public class WrappedPatientKey {
+    private String encryptedAesKey;
+    private String initializationVector;
+    private String passwordSalt;
+}
@@ -0,0 +1,19 @@
+package com.shms.security.services;
+
+/**
+ * Thrown when the password hashing queue is full, so the caller can be told to retry later.
+ */
+public class HashingCapacityException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    private final int retryAfterSeconds;
+
+    public HashingCapacityException(int retryAfterSeconds) {
+        super("Server is busy, please retry in " + retryAfterSeconds + " seconds");
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public int getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
@@ -0,0 +1,127 @@
+package com.shms.security.services;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+import javax.annotation.PreDestroy;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+
+/**
+ * Runs BCrypt and PBKDF2 work off the request threads on a fixed pool with a
+ * bounded queue. When the queue is full, work is refused immediately with a
+ * {@link HashingCapacityException} instead of piling up behind a login storm.
+ */
+@Component
+public class PasswordHashingExecutor implements MeterBinder {
+
+    private final ThreadPoolExecutor executor;
+    private final int retryAfterSeconds;
+
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder waitNanos = new LongAdder();
+    private final LongAdder executionNanos = new LongAdder();
+
+    public PasswordHashingExecutor(@Value("${shms.password-hashing.pool-size}") int poolSize,
+                                   @Value("${shms.password-hashing.queue-capacity}") int queueCapacity,
+                                   @Value("${shms.password-hashing.retry-after-seconds}") int retryAfterSeconds) {
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), new CustomizableThreadFactory("password-hashing-"),
+                new ThreadPoolExecutor.AbortPolicy());
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    /**
+     * Queue a hashing-heavy task
+     * @param task Work that hashes or derives keys from a password
+     * @return Future completed with the task's result or exception
+     * @throws HashingCapacityException if the queue is full
+     */
+    public <T> CompletableFuture<T> submit(Supplier<T> task) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        long queuedAt = System.nanoTime();
+        try {
+            executor.execute(() -> {
+                long startedAt = System.nanoTime();
+                waitNanos.add(startedAt - queuedAt);
+                try {
+                    future.complete(task.get());
+                } catch (Throwable e) {
+                    future.completeExceptionally(e);
+                } finally {
+                    // authenticateUser stores the result in the context; do not leak it to the next task
+                    SecurityContextHolder.clearContext();
+                    executionNanos.add(System.nanoTime() - startedAt);
+                    completed.increment();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            throw new HashingCapacityException(retryAfterSeconds);
+        }
+        return future;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        new ExecutorServiceMetrics(executor, "passwordHashing", Tags.empty()).bindTo(registry);
+        FunctionCounter.builder("shms.password.hashing.rejected", rejected, LongAdder::sum)
+                .description("Hashing tasks refused because the queue was full")
+                .register(registry);
+        FunctionTimer.builder("shms.password.hashing.wait", this,
+                        PasswordHashingExecutor::getCompletedCount, PasswordHashingExecutor::getTotalWaitNanos,
+                        TimeUnit.NANOSECONDS)
+                .description("Time hashing tasks spent queued")
+                .register(registry);
+        FunctionTimer.builder("shms.password.hashing.execution", this,
+                        PasswordHashingExecutor::getCompletedCount, PasswordHashingExecutor::getTotalExecutionNanos,
+                        TimeUnit.NANOSECONDS)
+                .description("Time hashing tasks spent running")
+                .register(registry);
+    }
+
+    public int getQueueDepth() {
+        return executor.getQueue().size();
+    }
+
+    public int getActiveCount() {
+        return executor.getActiveCount();
+    }
+
+    public long getCompletedCount() {
+        return completed.sum();
+    }
+
+    public long getRejectedCount() {
+        return rejected.sum();
+    }
+
+    public long getTotalWaitNanos() {
+        return waitNanos.sum();
+    }
+
+    public long getTotalExecutionNanos() {
+        return executionNanos.sum();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+}
@@ -1,8 +1,11 @@
 package com.shms.security.services;
 
 import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumSet;
 import java.util.List;
 import java.util.Objects;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 import org.springframework.security.core.GrantedAuthority;
@@ -10,6 +13,7 @@ import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.shms.model.ERole;
 import com.shms.model.User;
 
 public class UserDetailsImpl implements UserDetails {
@@ -24,13 +28,39 @@ public class UserDetailsImpl implements UserDetails {
 
     private Collection<? extends GrantedAuthority> authorities;
 
+    // Authorities as an EnumSet (a single bit field), for role checks without string compares
+    @JsonIgnore
+    private Set<ERole> roles;
+
+    @JsonIgnore
+    private String sessionId;
+
     public UserDetailsImpl(Long id, String username, String email, String password,
                            Collection<? extends GrantedAuthority> authorities) {
+        this(id, username, email, password, authorities, null);
+    }
+
+    public UserDetailsImpl(Long id, String username, String email, String password,
+                           Collection<? extends GrantedAuthority> authorities, String sessionId) {
         this.id = id;
         this.username = username;
         this.email = email;
         this.password = password;
         this.authorities = authorities;
+        this.sessionId = sessionId;
+        this.roles = toRoles(authorities);
+    }
+
+    private static Set<ERole> toRoles(Collection<? extends GrantedAuthority> authorities) {
+        EnumSet<ERole> roles = EnumSet.noneOf(ERole.class);
+        for (GrantedAuthority authority : authorities) {
+            for (ERole role : ERole.values()) {
+                if (role.name().equals(authority.getAuthority())) {
+                    roles.add(role);
+                }
+            }
+        }
+        return Collections.unmodifiableSet(roles);
     }
 
     public static UserDetailsImpl build(User user) {
@@ -46,10 +76,26 @@ public class UserDetailsImpl implements UserDetails {
                 authorities);
     }
 
+    public UserDetailsImpl withSessionId(String sessionId) {
+        return new UserDetailsImpl(id, username, email, password, authorities, sessionId);
+    }
+
     public Long getId() {
         return id;
     }
 
+    public String getSessionId() {
+        return sessionId;
+    }
+
+    public Set<ERole> getRoles() {
+        return roles;
+    }
+
+    public boolean hasRole(ERole role) {
+        return roles.contains(role);
+    }
+
     public String getEmail() {
         return email;
     }
@@ -1,26 +1,81 @@
 package com.shms.security.services;
 
+import java.time.Duration;
+
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
 import com.shms.model.User;
 import com.shms.repository.UserRepository;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+/**
+ * Resolves principals by username through a bounded cache, so repeated logins and
+ * strict-mode token checks do not reload the user and its roles every time.
+ * Entries expire after a fixed TTL and must be evicted when a user changes.
+ */
 @Service
-public class UserDetailsServiceImpl implements UserDetailsService {
+public class UserDetailsServiceImpl implements UserDetailsService, MeterBinder {
     @Autowired
     UserRepository userRepository;
 
+    private final Cache<String, UserDetailsImpl> principals;
+
+    public UserDetailsServiceImpl(@Value("${shms.principal-cache.max-entries}") long maxEntries,
+                                  @Value("${shms.principal-cache.ttl-seconds}") long ttlSeconds) {
+        this.principals = Caffeine.newBuilder()
+                .maximumSize(maxEntries)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .recordStats()
+                .build();
+    }
+
     @Override
-    @Transactional
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
+        // Not transactional, so a cache hit never checks out a connection.
+        // Concurrent misses for one username share a single load; roles are fetched eagerly
+        return principals.get(username, this::loadPrincipal);
+    }
+
+    /**
+     * Drop the cached principal of a user after it is changed or deleted
+     * @param username The username
+     */
+    public void evictUser(String username) {
+        principals.invalidate(username);
+    }
+
+    public void evictAll() {
+        principals.invalidateAll();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, principals, "principals");
+    }
+
+    public CacheStats stats() {
+        return principals.stats();
+    }
+
+    public long size() {
+        return principals.estimatedSize();
+    }
+
+    private UserDetailsImpl loadPrincipal(String username) {
         User user = userRepository.findByUsername(username)
                 .orElseThrow(() -> new UsernameNotFoundException("User Not Found with username: " + username));
 
         return UserDetailsImpl.build(user);
     }
-} 
\ No newline at end of file
+}
@@ -0,0 +1,12 @@
+package com.shms.service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+public interface AdminListingService {
+    void writeUsers(String cursor, Integer size, OutputStream out) throws IOException;
+    
+    void writeDoctors(String cursor, Integer size, OutputStream out) throws IOException;
+    
+    void writePatients(String cursor, Integer size, OutputStream out) throws IOException;
+}
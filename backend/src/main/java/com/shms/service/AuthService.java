@@ -13,4 +13,6 @@ public interface AuthService {
     MessageResponse registerDoctor(SignupRequest signupRequest);
     
     MessageResponse registerPatient(SignupRequest signupRequest);
+    
+    MessageResponse logoutUser(String sessionId);
 } 
\ No newline at end of file
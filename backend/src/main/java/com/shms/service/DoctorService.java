@@ -2,15 +2,21 @@ package com.shms.service;
 
 import java.util.List;
 
+import com.shms.payload.response.BulkAssignmentResponse;
 import com.shms.payload.response.MessageResponse;
+import com.shms.payload.response.PageResponse;
 import com.shms.payload.response.PatientResponse;
 
 public interface DoctorService {
     List<PatientResponse> getAssignedPatients(Long doctorId);
     
-    List<PatientResponse> getAllPatients();
+    PageResponse<PatientResponse> getAllPatients(String cursor, Integer size);
     
     MessageResponse assignPatient(Long doctorId, Long patientId);
     
     MessageResponse unassignPatient(Long doctorId, Long patientId);
+    
+    BulkAssignmentResponse assignPatients(Long doctorId, List<Long> patientIds);
+    
+    BulkAssignmentResponse unassignPatients(Long doctorId, List<Long> patientIds);
 } 
\ No newline at end of file
@@ -1,17 +1,55 @@
 package com.shms.service;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.util.List;
 
+import org.springframework.web.multipart.MultipartFile;
+
+import com.shms.payload.request.KeywordSearchRequest;
 import com.shms.payload.request.MedicalRecordRequest;
+import com.shms.payload.request.RecordPageRequest;
+import com.shms.payload.request.RecordSearchRequest;
+import com.shms.payload.response.DecryptedRecordResponse;
+import com.shms.payload.response.ImportSummary;
 import com.shms.payload.response.MedicalRecordResponse;
 import com.shms.payload.response.MessageResponse;
+import com.shms.payload.response.PageResponse;
+import com.shms.payload.response.RecordContentStream;
 
 public interface MedicalRecordService {
     MessageResponse uploadMedicalRecord(MedicalRecordRequest recordRequest, Long userId);
     
-    List<MedicalRecordResponse> getPatientRecords(Long patientId, Long userId);
+    ImportSummary uploadMedicalRecords(Long patientId, InputStream ndjson, OutputStream report, Long userId)
+            throws IOException;
+    
+    MessageResponse uploadMedicalRecordFile(MultipartFile file, String recordType, Long patientId,
+                                            String password, Long userId, String sessionId);
+    
+    PageResponse<MedicalRecordResponse> getPatientRecords(Long patientId, RecordPageRequest pageRequest, Long userId);
+    
+    PageResponse<MedicalRecordResponse> searchPatientRecords(Long patientId, RecordSearchRequest searchRequest,
+                                                             Long userId);
+    
+    PageResponse<MedicalRecordResponse> searchPatientRecordsByKeywords(Long patientId,
+                                                                       KeywordSearchRequest searchRequest,
+                                                                       Long userId, String sessionId) throws Exception;
+    
+    PageResponse<MedicalRecordResponse> getDoctorRecords(RecordPageRequest pageRequest, Long userId);
+    
+    RecordContentStream openEncryptedContent(Long recordId, Long userId);
+    
+    long exportPatientRecords(Long patientId, boolean includeContent, Long userId, OutputStream out)
+            throws IOException;
+    
+    long exportDoctorPanelRecords(Long doctorId, boolean includeContent, Long userId, OutputStream out)
+            throws IOException;
+    
+    String decryptRecord(Long recordId, String password, Long userId, String sessionId) throws Exception;
     
-    List<MedicalRecordResponse> getDoctorRecords(Long userId);
+    List<DecryptedRecordResponse> decryptRecords(List<Long> recordIds, String password, Long userId,
+                                                 String sessionId) throws Exception;
     
-    String decryptRecord(Long recordId, String password, Long userId) throws Exception;
+    RecordContentStream openDecryptedRecord(Long recordId, String password, Long userId, String sessionId) throws Exception;
 } 
\ No newline at end of file
@@ -0,0 +1,11 @@
+package com.shms.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+import com.shms.payload.response.ImportSummary;
+
+public interface PatientImportService {
+    ImportSummary importPatients(InputStream ndjson, OutputStream report) throws IOException;
+}
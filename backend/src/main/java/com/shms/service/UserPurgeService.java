@@ -0,0 +1,9 @@
+package com.shms.service;
+
+import com.shms.model.UserPurgeJob;
+
+public interface UserPurgeService {
+    UserPurgeJob requestPurge(Long userId);
+    
+    UserPurgeJob getJob(Long jobId);
+}
@@ -0,0 +1,189 @@
+package com.shms.service.impl;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+import javax.annotation.PostConstruct;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.shms.config.PaginationSettings;
+import com.shms.payload.request.KeysetCursor;
+import com.shms.payload.response.AdminDoctorResponse;
+import com.shms.payload.response.AdminPatientResponse;
+import com.shms.payload.response.AdminUserResponse;
+import com.shms.repository.DoctorRepository;
+import com.shms.repository.PatientRepository;
+import com.shms.repository.UserRepository;
+import com.shms.repository.UserRepository.UserRoleRow;
+import com.shms.service.AdminListingService;
+
+/**
+ * Writes the admin user, doctor and patient listings as {@code PageResponse} JSON.
+ * Each page is one projection query read through a database cursor, and each row
+ * is written to the response as soon as it is read, so memory stays flat however
+ * large the page and no entity graph is ever loaded.
+ */
+@Service
+public class AdminListingServiceImpl implements AdminListingService {
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private DoctorRepository doctorRepository;
+
+    @Autowired
+    private PatientRepository patientRepository;
+
+    @Autowired
+    private PaginationSettings paginationSettings;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate transactionTemplate;
+
+    @PostConstruct
+    public void initTransactionTemplate() {
+        // Streamed queries need an open transaction for the cursor to live in
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.setReadOnly(true);
+    }
+
+    @Override
+    public void writeUsers(String cursor, Integer size, OutputStream out) throws IOException {
+        Long afterId = afterId(cursor);
+        int pageSize = paginationSettings.resolvePageSize(size);
+        writePage(out, pageSize, AdminUserResponse::getId,
+                () -> userRepository.streamAdminPage(afterId, pageSize + 1),
+                rows -> new UserRoleGrouper(rows.iterator()));
+    }
+
+    @Override
+    public void writeDoctors(String cursor, Integer size, OutputStream out) throws IOException {
+        Long afterId = afterId(cursor);
+        int pageSize = paginationSettings.resolvePageSize(size);
+        writePage(out, pageSize, AdminDoctorResponse::getId,
+                () -> doctorRepository.streamAdminPage(afterId, PageRequest.of(0, pageSize + 1)),
+                Stream::iterator);
+    }
+
+    @Override
+    public void writePatients(String cursor, Integer size, OutputStream out) throws IOException {
+        Long afterId = afterId(cursor);
+        int pageSize = paginationSettings.resolvePageSize(size);
+        writePage(out, pageSize, AdminPatientResponse::getId,
+                () -> patientRepository.streamAdminPage(afterId, PageRequest.of(0, pageSize + 1)),
+                Stream::iterator);
+    }
+
+    private Long afterId(String cursor) {
+        KeysetCursor after = KeysetCursor.decode(cursor);
+        return after != null ? after.getId() : 0L;
+    }
+
+    /**
+     * Write {"items": [...], "nextCursor": ...} from a query that fetches one row more
+     * than the page size; the extra row only tells whether a next page exists
+     */
+    private <R, T> void writePage(OutputStream out, int pageSize, Function<T, Long> idOf,
+                                  RowQuery<R> query, Function<Stream<R>, Iterator<T>> items) throws IOException {
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                try (Stream<R> rows = query.open();
+                     JsonGenerator generator = objectMapper.createGenerator(out, JsonEncoding.UTF8)) {
+                    generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+                    generator.writeStartObject();
+                    generator.writeArrayFieldStart("items");
+
+                    Iterator<T> iterator = items.apply(rows);
+                    Long lastId = null;
+                    int written = 0;
+                    boolean hasMore = false;
+                    while (iterator.hasNext()) {
+                        T item = iterator.next();
+                        if (written == pageSize) {
+                            hasMore = true;
+                            break;
+                        }
+                        generator.writeObject(item);
+                        lastId = idOf.apply(item);
+                        written++;
+                    }
+
+                    generator.writeEndArray();
+                    generator.writeStringField("nextCursor", hasMore ? KeysetCursor.afterId(lastId).encode() : null);
+                    generator.writeEndObject();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    @FunctionalInterface
+    private interface RowQuery<R> {
+        Stream<R> open();
+    }
+
+    /**
+     * Folds consecutive role rows of the same user into one response
+     */
+    private static final class UserRoleGrouper implements Iterator<AdminUserResponse> {
+        private final Iterator<UserRoleRow> rows;
+        private UserRoleRow pending;
+
+        UserRoleGrouper(Iterator<UserRoleRow> rows) {
+            this.rows = rows;
+            this.pending = rows.hasNext() ? rows.next() : null;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return pending != null;
+        }
+
+        @Override
+        public AdminUserResponse next() {
+            if (pending == null) {
+                throw new NoSuchElementException();
+            }
+            UserRoleRow first = pending;
+            AdminUserResponse user = new AdminUserResponse();
+            user.setId(first.getId());
+            user.setUsername(first.getUsername());
+            user.setEmail(first.getEmail());
+            user.setFirstName(first.getFirstName());
+            user.setLastName(first.getLastName());
+
+            pending = null;
+            UserRoleRow row = first;
+            while (row != null && row.getId().equals(first.getId())) {
+                if (row.getRole() != null) {
+                    user.getRoles().add(row.getRole());
+                }
+                row = rows.hasNext() ? rows.next() : null;
+            }
+            pending = row;
+            return user;
+        }
+    }
+}
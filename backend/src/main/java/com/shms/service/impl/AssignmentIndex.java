@@ -0,0 +1,115 @@
+package com.shms.service.impl;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.shms.repository.DoctorPatientAssignmentRepository;
+
+/**
+ * Answers "is this patient assigned to this doctor" without loading the doctor's panel.
+ * By default every check is a primary key lookup on doctor_patients. With
+ * shms.assignment-index.enabled each doctor's panel is also kept in memory as a
+ * sorted long[] that is loaded on first use and dropped on assign/unassign.
+ * The in-memory index only sees changes made through this instance, so leave it
+ * off when several application instances share the database.
+ */
+@Component
+public class AssignmentIndex {
+
+    private static final long[] EMPTY = new long[0];
+
+    @Autowired
+    private DoctorPatientAssignmentRepository assignmentRepository;
+
+    @Value("${shms.assignment-index.enabled}")
+    private boolean enabled;
+
+    private final ConcurrentHashMap<Long, long[]> panels = new ConcurrentHashMap<>();
+
+    /**
+     * Check whether a patient is assigned to a doctor
+     * @param doctorId The doctor profile id
+     * @param patientId The patient id
+     * @return true if the doctor_patients row exists
+     */
+    public boolean isAssigned(Long doctorId, Long patientId) {
+        if (!enabled) {
+            return assignmentRepository.existsByDoctorIdAndPatientId(doctorId, patientId);
+        }
+        long[] panel = panels.computeIfAbsent(doctorId, this::loadPanel);
+        return Arrays.binarySearch(panel, patientId) >= 0;
+    }
+
+    /**
+     * Assign a patient to a doctor
+     * @return false if the patient was already assigned
+     */
+    public boolean assign(Long doctorId, Long patientId) {
+        // The insert itself decides, so two concurrent assigns cannot both add the row
+        if (assignmentRepository.insertIfAbsent(doctorId, patientId) == 0) {
+            return false;
+        }
+        evictDoctor(doctorId);
+        return true;
+    }
+
+    /**
+     * Remove a patient from a doctor's panel
+     * @return false if the patient was not assigned
+     */
+    public boolean unassign(Long doctorId, Long patientId) {
+        if (assignmentRepository.deleteAssignment(doctorId, patientId) == 0) {
+            return false;
+        }
+        evictDoctor(doctorId);
+        return true;
+    }
+
+    /**
+     * Assign many patients in one statement; ids of missing patients are skipped
+     * @return Number of patients newly assigned
+     */
+    public int assignAll(Long doctorId, Collection<Long> patientIds) {
+        int added = assignmentRepository.insertAllIfAbsent(doctorId, patientIds);
+        if (added > 0) {
+            evictDoctor(doctorId);
+        }
+        return added;
+    }
+
+    /**
+     * Remove many patients from a doctor's panel in one statement
+     * @return Number of patients that were assigned and are now removed
+     */
+    public int unassignAll(Long doctorId, Collection<Long> patientIds) {
+        int removed = assignmentRepository.deleteAssignments(doctorId, patientIds);
+        if (removed > 0) {
+            evictDoctor(doctorId);
+        }
+        return removed;
+    }
+
+    /**
+     * Forget a doctor's panel, e.g. after the doctor is deleted
+     * @param doctorId The doctor profile id
+     */
+    public void evictDoctor(Long doctorId) {
+        // Runs after the change commits. A load already in progress may have read the
+        // old rows, but remove() waits for it to finish and then drops its result.
+        panels.remove(doctorId);
+    }
+
+    private long[] loadPanel(Long doctorId) {
+        List<Long> patientIds = assignmentRepository.findPatientIdsByDoctorId(doctorId);
+        if (patientIds.isEmpty()) {
+            return EMPTY;
+        }
+        return patientIds.stream().mapToLong(Long::longValue).sorted().distinct().toArray();
+    }
+}
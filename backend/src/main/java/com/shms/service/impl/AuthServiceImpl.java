@@ -14,6 +14,7 @@ import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 
+import com.shms.config.RoleRegistry;
 import com.shms.model.Doctor;
 import com.shms.model.ERole;
 import com.shms.model.Patient;
@@ -25,9 +26,10 @@ import com.shms.payload.response.JwtResponse;
 import com.shms.payload.response.MessageResponse;
 import com.shms.repository.DoctorRepository;
 import com.shms.repository.PatientRepository;
-import com.shms.repository.RoleRepository;
 import com.shms.repository.UserRepository;
 import com.shms.security.encryption.EncryptionService;
+import com.shms.security.encryption.PatientKeyVault;
+import com.shms.security.encryption.WrappedPatientKey;
 import com.shms.security.jwt.JwtUtils;
 import com.shms.security.services.UserDetailsImpl;
 import com.shms.service.AuthService;
@@ -41,7 +43,7 @@ public class AuthServiceImpl implements AuthService {
     UserRepository userRepository;
 
     @Autowired
-    RoleRepository roleRepository;
+    RoleRegistry roleRegistry;
 
     @Autowired
     PatientRepository patientRepository;
@@ -57,6 +59,9 @@ public class AuthServiceImpl implements AuthService {
     
     @Autowired
     EncryptionService encryptionService;
+    
+    @Autowired
+    PatientKeyVault keyVault;
 
     @Override
     public JwtResponse authenticateUser(LoginRequest loginRequest) {
@@ -114,26 +119,18 @@ public class AuthServiceImpl implements AuthService {
         Set<String> strRoles = signupRequest.getRole();
         
         if (strRoles == null || strRoles.isEmpty()) {
-            Role userRole = roleRepository.findByName(ERole.ROLE_PATIENT)
-                    .orElseThrow(() -> new RuntimeException("Error: Role is not found."));
-            roles.add(userRole);
+            roles.add(roleRegistry.get(ERole.ROLE_PATIENT));
         } else {
             strRoles.forEach(role -> {
                 switch (role) {
                     case "admin":
-                        Role adminRole = roleRepository.findByName(ERole.ROLE_ADMIN)
-                                .orElseThrow(() -> new RuntimeException("Error: Admin Role is not found."));
-                        roles.add(adminRole);
+                        roles.add(roleRegistry.get(ERole.ROLE_ADMIN));
                         break;
                     case "doctor":
-                        Role doctorRole = roleRepository.findByName(ERole.ROLE_DOCTOR)
-                                .orElseThrow(() -> new RuntimeException("Error: Doctor Role is not found."));
-                        roles.add(doctorRole);
+                        roles.add(roleRegistry.get(ERole.ROLE_DOCTOR));
                         break;
                     default:
-                        Role patientRole = roleRepository.findByName(ERole.ROLE_PATIENT)
-                                .orElseThrow(() -> new RuntimeException("Error: Patient Role is not found."));
-                        roles.add(patientRole);
+                        roles.add(roleRegistry.get(ERole.ROLE_PATIENT));
                 }
             });
         }
@@ -180,18 +177,8 @@ public class AuthServiceImpl implements AuthService {
                 .orElseThrow(() -> new RuntimeException("Error: User not found."));
 
         try {
-            // Generate salt for password derivation
-            String salt = encryptionService.generateSalt();
-            
-            // Generate AES key for the patient
-            String aesKey = encryptionService.generateAESKey();
-            String iv = encryptionService.generateIV();
-            
-            // Derive a key from the patient's password to encrypt their AES key
-            String passwordDerivedKey = encryptionService.deriveKeyFromPassword(signupRequest.getPassword(), salt);
-            
-            // Encrypt the AES key with the password-derived key
-            String encryptedAesKey = encryptionService.encryptAESKey(aesKey, passwordDerivedKey, iv);
+            // Generate the patient's AES key and encrypt it with a key derived from their password
+            WrappedPatientKey patientKey = encryptionService.newPatientKey(signupRequest.getPassword());
             
             // Create patient profile
             Patient patient = new Patient();
@@ -199,9 +186,9 @@ public class AuthServiceImpl implements AuthService {
             patient.setDateOfBirth(signupRequest.getDateOfBirth());
             patient.setContactNumber(signupRequest.getContactNumber());
             patient.setAddress(signupRequest.getAddress());
-            patient.setEncryptedAesKey(encryptedAesKey);
-            patient.setInitializationVector(iv);
-            patient.setPasswordSalt(salt);
+            patient.setEncryptedAesKey(patientKey.getEncryptedAesKey());
+            patient.setInitializationVector(patientKey.getInitializationVector());
+            patient.setPasswordSalt(patientKey.getPasswordSalt());
             
             patientRepository.save(patient);
             
@@ -212,4 +199,11 @@ public class AuthServiceImpl implements AuthService {
             return new MessageResponse("Error: Could not complete patient registration. Please try again.");
         }
     }
-} 
\ No newline at end of file
+
+    @Override
+    public MessageResponse logoutUser(String sessionId) {
+        // Zeroize any patient keys this session unlocked
+        keyVault.evictSession(sessionId);
+        return new MessageResponse("Logged out successfully!");
+    }
+}
\ No newline at end of file
@@ -1,20 +1,24 @@
 package com.shms.service.impl;
 
 import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Set;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 
-import com.shms.model.Doctor;
-import com.shms.model.Patient;
-import com.shms.model.User;
+import com.shms.config.PaginationSettings;
+import com.shms.payload.request.KeysetCursor;
+import com.shms.payload.response.BulkAssignmentResponse;
 import com.shms.payload.response.MessageResponse;
+import com.shms.payload.response.PageResponse;
 import com.shms.payload.response.PatientResponse;
 import com.shms.repository.DoctorRepository;
 import com.shms.repository.PatientRepository;
-import com.shms.repository.UserRepository;
 import com.shms.service.DoctorService;
 
 @Service
@@ -27,54 +31,53 @@ public class DoctorServiceImpl implements DoctorService {
     private PatientRepository patientRepository;
     
     @Autowired
-    private UserRepository userRepository;
+    private PaginationSettings paginationSettings;
+    
+    @Autowired
+    private AssignmentIndex assignmentIndex;
+    
+    @Value("${shms.bulk-assign.max-patients}")
+    private int bulkAssignMaxPatients;
 
     @Override
     public List<PatientResponse> getAssignedPatients(Long doctorId) {
-        User user = userRepository.findById(doctorId)
-                .orElseThrow(() -> new RuntimeException("Doctor not found with id: " + doctorId));
-        
-        Doctor doctor = doctorRepository.findByUser(user)
-                .orElseThrow(() -> new RuntimeException("Doctor profile not found for user"));
+        if (!doctorRepository.existsByUserId(doctorId)) {
+            throw new RuntimeException("Doctor profile not found for user");
+        }
         
-        return doctor.getPatients().stream()
-                .map(patient -> mapPatientToResponse(patient, true))
-                .collect(Collectors.toList());
+        // Projection query: one statement however many patients are assigned
+        List<PatientResponse> patients = patientRepository.findResponsesByDoctorUserId(doctorId);
+        patients.forEach(patient -> patient.setAssigned(true));
+        return patients;
     }
 
     @Override
-    public List<PatientResponse> getAllPatients() {
-        List<Patient> patients = patientRepository.findAll();
-        List<PatientResponse> responses = new ArrayList<>();
+    public PageResponse<PatientResponse> getAllPatients(String cursor, Integer size) {
+        int pageSize = paginationSettings.resolvePageSize(size);
+        KeysetCursor after = KeysetCursor.decode(cursor);
         
-        for (Patient patient : patients) {
-            responses.add(mapPatientToResponse(patient, false));
-        }
+        // Fetch one extra row to learn whether another page follows
+        List<PatientResponse> responses = patientRepository.findResponsePage(
+                after != null ? after.getId() : 0L, PageRequest.of(0, pageSize + 1));
         
-        return responses;
+        return PageResponse.of(responses, pageSize, response -> KeysetCursor.afterId(response.getId()));
     }
 
     @Override
     public MessageResponse assignPatient(Long doctorId, Long patientId) {
         try {
-            User doctorUser = userRepository.findById(doctorId)
-                    .orElseThrow(() -> new RuntimeException("Doctor not found with id: " + doctorId));
-            
-            Doctor doctor = doctorRepository.findByUser(doctorUser)
+            Long doctorProfileId = doctorRepository.findIdByUserId(doctorId)
                     .orElseThrow(() -> new RuntimeException("Doctor profile not found for user"));
             
-            Patient patient = patientRepository.findById(patientId)
-                    .orElseThrow(() -> new RuntimeException("Patient not found with id: " + patientId));
+            if (!patientRepository.existsById(patientId)) {
+                throw new RuntimeException("Patient not found with id: " + patientId);
+            }
             
-            // Check if patient is already assigned to this doctor
-            if (doctor.getPatients().contains(patient)) {
+            // Add the doctor_patients row unless the patient is already assigned
+            if (!assignmentIndex.assign(doctorProfileId, patientId)) {
                 return new MessageResponse("Patient is already assigned to this doctor");
             }
             
-            // Add patient to doctor's list
-            doctor.getPatients().add(patient);
-            doctorRepository.save(doctor);
-            
             return new MessageResponse("Patient assigned successfully");
         } catch (Exception e) {
             return new MessageResponse("Error: " + e.getMessage());
@@ -84,43 +87,69 @@ public class DoctorServiceImpl implements DoctorService {
     @Override
     public MessageResponse unassignPatient(Long doctorId, Long patientId) {
         try {
-            User doctorUser = userRepository.findById(doctorId)
-                    .orElseThrow(() -> new RuntimeException("Doctor not found with id: " + doctorId));
-            
-            Doctor doctor = doctorRepository.findByUser(doctorUser)
+            Long doctorProfileId = doctorRepository.findIdByUserId(doctorId)
                     .orElseThrow(() -> new RuntimeException("Doctor profile not found for user"));
             
-            Patient patient = patientRepository.findById(patientId)
-                    .orElseThrow(() -> new RuntimeException("Patient not found with id: " + patientId));
+            if (!patientRepository.existsById(patientId)) {
+                throw new RuntimeException("Patient not found with id: " + patientId);
+            }
             
-            // Check if patient is assigned to this doctor
-            if (!doctor.getPatients().contains(patient)) {
+            // Remove the doctor_patients row if there is one
+            if (!assignmentIndex.unassign(doctorProfileId, patientId)) {
                 return new MessageResponse("Patient is not assigned to this doctor");
             }
             
-            // Remove patient from doctor's list
-            doctor.getPatients().remove(patient);
-            doctorRepository.save(doctor);
-            
             return new MessageResponse("Patient unassigned successfully");
         } catch (Exception e) {
             return new MessageResponse("Error: " + e.getMessage());
         }
     }
-    
-    private PatientResponse mapPatientToResponse(Patient patient, boolean isAssigned) {
-        User user = patient.getUser();
+
+    @Override
+    public BulkAssignmentResponse assignPatients(Long doctorId, List<Long> patientIds) {
+        Long doctorProfileId = doctorRepository.findIdByUserId(doctorId)
+                .orElseThrow(() -> new RuntimeException("Doctor profile not found for user"));
+        Set<Long> requested = distinctIds(patientIds);
         
-        PatientResponse response = new PatientResponse();
-        response.setId(patient.getId());
-        response.setUsername(user.getUsername());
-        response.setFullName(user.getFirstName() + " " + user.getLastName());
-        response.setEmail(user.getEmail());
-        response.setDateOfBirth(patient.getDateOfBirth());
-        response.setContactNumber(patient.getContactNumber());
-        response.setAddress(patient.getAddress());
-        response.setAssigned(isAssigned);
+        // One INSERT ... SELECT ... ON CONFLICT DO NOTHING for the whole list
+        int added = assignmentIndex.assignAll(doctorProfileId, requested);
+        List<Long> notFound = missingPatients(requested);
+        return new BulkAssignmentResponse(requested.size(), added, requested.size() - added - notFound.size(),
+                notFound);
+    }
+
+    @Override
+    public BulkAssignmentResponse unassignPatients(Long doctorId, List<Long> patientIds) {
+        Long doctorProfileId = doctorRepository.findIdByUserId(doctorId)
+                .orElseThrow(() -> new RuntimeException("Doctor profile not found for user"));
+        Set<Long> requested = distinctIds(patientIds);
         
-        return response;
+        int removed = assignmentIndex.unassignAll(doctorProfileId, requested);
+        List<Long> notFound = missingPatients(requested);
+        return new BulkAssignmentResponse(requested.size(), removed, requested.size() - removed - notFound.size(),
+                notFound);
+    }
+
+    private Set<Long> distinctIds(List<Long> patientIds) {
+        Set<Long> ids = new LinkedHashSet<>(patientIds);
+        ids.remove(null);
+        if (ids.isEmpty()) {
+            throw new RuntimeException("No patient ids given");
+        }
+        if (ids.size() > bulkAssignMaxPatients) {
+            throw new RuntimeException("At most " + bulkAssignMaxPatients + " patients can be changed at once");
+        }
+        return ids;
+    }
+
+    private List<Long> missingPatients(Set<Long> requested) {
+        Set<Long> existing = new HashSet<>(patientRepository.findExistingIds(requested));
+        List<Long> missing = new ArrayList<>();
+        for (Long id : requested) {
+            if (!existing.contains(id)) {
+                missing.add(id);
+            }
+        }
+        return missing;
     }
-}
+}
\ No newline at end of file
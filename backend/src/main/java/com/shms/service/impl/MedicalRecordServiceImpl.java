@@ -1,32 +1,86 @@
 package com.shms.service.impl;
 
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.GeneralSecurityException;
+import java.sql.Blob;
+import java.sql.SQLException;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 import java.util.stream.Collectors;
 
+import javax.annotation.PostConstruct;
+import javax.crypto.SecretKey;
+
+import org.hibernate.engine.jdbc.BlobProxy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import com.shms.config.PaginationSettings;
 import com.shms.model.Doctor;
 import com.shms.model.ERole;
 import com.shms.model.MedicalRecord;
+import com.shms.model.MedicalRecordContent;
 import com.shms.model.Patient;
 import com.shms.model.Role;
 import com.shms.model.User;
+import com.shms.payload.request.KeysetCursor;
+import com.shms.payload.request.KeywordSearchRequest;
 import com.shms.payload.request.MedicalRecordRequest;
+import com.shms.payload.request.RecordPageRequest;
+import com.shms.payload.request.RecordSearchRequest;
+import com.shms.payload.response.DecryptedRecordResponse;
+import com.shms.payload.response.ImportSummary;
 import com.shms.payload.response.MedicalRecordResponse;
 import com.shms.payload.response.MessageResponse;
+import com.shms.payload.response.PageResponse;
+import com.shms.payload.response.RecordContentStream;
 import com.shms.repository.DoctorRepository;
+import com.shms.repository.MedicalRecordContentRepository;
 import com.shms.repository.MedicalRecordRepository;
+import com.shms.repository.MedicalRecordRepository.RecordPatient;
 import com.shms.repository.PatientRepository;
 import com.shms.repository.UserRepository;
 import com.shms.security.encryption.EncryptionService;
+import com.shms.security.encryption.KeywordCollector;
+import com.shms.security.encryption.PatientKeyVault;
+import com.shms.security.encryption.StreamingRecordCipher;
+import com.shms.security.services.UserDetailsImpl;
 import com.shms.service.MedicalRecordService;
 
 @Service
 public class MedicalRecordServiceImpl implements MedicalRecordService {
+    private static final Logger logger = LoggerFactory.getLogger(MedicalRecordServiceImpl.class);
+
+    private static final int CHUNKED_HEADER_PROBE = 16;
 
     @Autowired
     private UserRepository userRepository;
@@ -40,56 +94,74 @@ public class MedicalRecordServiceImpl implements MedicalRecordService {
     @Autowired
     private MedicalRecordRepository medicalRecordRepository;
 
+    @Autowired
+    private MedicalRecordContentRepository medicalRecordContentRepository;
+
     @Autowired
     private EncryptionService encryptionService;
 
+    @Autowired
+    private AssignmentIndex assignmentIndex;
+
+    @Autowired
+    private StreamingRecordCipher streamingRecordCipher;
+
+    @Autowired
+    private PatientKeyVault keyVault;
+
+    @Autowired
+    private RecordKeywordIndex recordKeywordIndex;
+
+    @Autowired
+    private RecordExporter recordExporter;
+
+    @Autowired
+    private RecordBulkUploader recordBulkUploader;
+
+    @Autowired
+    private PaginationSettings paginationSettings;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    @Qualifier("recordDecryptExecutor")
+    private Executor recordDecryptExecutor;
+
+    @Value("${shms.batch-decrypt.max-records}")
+    private int batchDecryptMaxRecords;
+
+    private TransactionTemplate transactionTemplate;
+
+    private TransactionTemplate readOnlyTransactionTemplate;
+
+    @PostConstruct
+    public void initTransactionTemplates() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        readOnlyTransactionTemplate = new TransactionTemplate(transactionManager);
+        readOnlyTransactionTemplate.setReadOnly(true);
+    }
+
     @Override
     public MessageResponse uploadMedicalRecord(MedicalRecordRequest recordRequest, Long userId) {
         try {
-            User user = userRepository.findById(userId)
-                    .orElseThrow(() -> new UsernameNotFoundException("User not found with id: " + userId));
-
-            boolean isPatient = false;
-            boolean isDoctor = false;
-
-            for (Role role : user.getRoles()) {
-                if (role.getName() == ERole.ROLE_PATIENT) {
-                    isPatient = true;
-                } else if (role.getName() == ERole.ROLE_DOCTOR) {
-                    isDoctor = true;
-                }
-            }
+            Set<ERole> roles = rolesOf(userId);
 
             MedicalRecord record = new MedicalRecord();
             record.setRecordType(recordRequest.getRecordType());
-            record.setEncryptedContent(recordRequest.getEncryptedContent());
             record.setFileName(recordRequest.getFileName());
             record.setContentType(recordRequest.getContentType());
             record.setCreatedAt(LocalDateTime.now());
             record.setUpdatedAt(LocalDateTime.now());
 
-            if (isPatient) {
-                Patient patient = patientRepository.findByUser(user)
-                        .orElseThrow(() -> new RuntimeException("Patient profile not found for user"));
-                record.setPatient(patient);
-            } else if (isDoctor) {
-                Doctor doctor = doctorRepository.findByUser(user)
-                        .orElseThrow(() -> new RuntimeException("Doctor profile not found for user"));
-                record.setDoctor(doctor);
-
-                // If doctor is uploading for a patient
-                if (recordRequest.getPatientId() != null) {
-                    Patient patient = patientRepository.findById(recordRequest.getPatientId())
-                            .orElseThrow(() -> new RuntimeException("Patient not found"));
-                    record.setPatient(patient);
-                } else {
-                    return new MessageResponse("Error: Patient ID is required for doctor uploads");
-                }
-            } else {
-                return new MessageResponse("Error: User is neither patient nor doctor");
+            String error = attachOwners(record, roles, userId, recordRequest.getPatientId());
+            if (error != null) {
+                return new MessageResponse("Error: " + error);
             }
 
-            medicalRecordRepository.save(record);
+            byte[] encryptedContent = Base64.getDecoder().decode(recordRequest.getEncryptedContent());
+            record.setContentLength((long) encryptedContent.length);
+            saveWithContent(record, BlobProxy.generateProxy(encryptedContent), null);
             return new MessageResponse("Medical record uploaded successfully");
         } catch (Exception e) {
             return new MessageResponse("Error: " + e.getMessage());
@@ -97,66 +169,416 @@ public class MedicalRecordServiceImpl implements MedicalRecordService {
     }
 
     @Override
-    public List<MedicalRecordResponse> getPatientRecords(Long patientId, Long userId) {
+    public ImportSummary uploadMedicalRecords(Long patientId, InputStream ndjson, OutputStream report, Long userId)
+            throws IOException {
+        // Resolve the owners once and share them across the upload
+        MedicalRecord owners = new MedicalRecord();
+        String error = attachOwners(owners, rolesOf(userId), userId, patientId);
+        if (error != null) {
+            throw new RuntimeException(error);
+        }
+        return recordBulkUploader.upload(owners, ndjson, report);
+    }
+
+    @Override
+    public MessageResponse uploadMedicalRecordFile(MultipartFile file, String recordType, Long patientId,
+                                                   String password, Long userId, String sessionId) {
         try {
-            User user = userRepository.findById(userId)
-                    .orElseThrow(() -> new UsernameNotFoundException("User not found with id: " + userId));
-
-            boolean isPatient = false;
-            boolean isDoctor = false;
-            boolean isAdmin = false;
-
-            for (Role role : user.getRoles()) {
-                if (role.getName() == ERole.ROLE_PATIENT) {
-                    isPatient = true;
-                } else if (role.getName() == ERole.ROLE_DOCTOR) {
-                    isDoctor = true;
-                } else if (role.getName() == ERole.ROLE_ADMIN) {
-                    isAdmin = true;
+            Set<ERole> roles = rolesOf(userId);
+
+            MedicalRecord record = new MedicalRecord();
+            record.setRecordType(recordType);
+            record.setFileName(file.getOriginalFilename());
+            record.setContentType(file.getContentType());
+            record.setCreatedAt(LocalDateTime.now());
+            record.setUpdatedAt(LocalDateTime.now());
+
+            String error = attachOwners(record, roles, userId, patientId);
+            if (error != null) {
+                return new MessageResponse("Error: " + error);
+            }
+
+            // The file arrives in plaintext, so seal it in chunks under the patient's key.
+            // Ciphertext is spooled to disk and streamed into the blob to keep heap use flat.
+            byte[] aesKey = unlockPatientKey(record.getPatient(), password, sessionId);
+            // Text uploads are tokenised for the blind keyword index on the way through the cipher
+            KeywordCollector keywords = recordKeywordIndex.newCollector(file.getContentType());
+            Set<Long> tokens = null;
+            Path spool = Files.createTempFile("shms-record-", ".enc");
+            try {
+                try (InputStream in = file.getInputStream(); OutputStream out = Files.newOutputStream(spool)) {
+                    streamingRecordCipher.encrypt(keywords != null ? keywords.tee(in) : in, out,
+                            encryptionService.toSecretKey(aesKey), StreamingRecordCipher.DEFAULT_CHUNK_SIZE);
+                    if (keywords != null) {
+                        tokens = recordKeywordIndex.tokens(aesKey, keywords);
+                    }
+                } finally {
+                    Arrays.fill(aesKey, (byte) 0);
+                }
+
+                long length = Files.size(spool);
+                record.setContentLength(length);
+                try (InputStream encryptedContent = Files.newInputStream(spool)) {
+                    saveWithContent(record, BlobProxy.generateProxy(encryptedContent, length), tokens);
                 }
+            } finally {
+                Files.deleteIfExists(spool);
+            }
+            return new MessageResponse("Medical record uploaded successfully");
+        } catch (Exception e) {
+            return new MessageResponse("Error: " + e.getMessage());
+        }
+    }
+
+    private void saveWithContent(MedicalRecord record, Blob data, Set<Long> tokens) {
+        transactionTemplate.executeWithoutResult(status -> {
+            MedicalRecord saved = medicalRecordRepository.save(record);
+            MedicalRecordContent content = new MedicalRecordContent();
+            content.setRecord(saved);
+            content.setData(data);
+            medicalRecordContentRepository.save(content);
+            recordKeywordIndex.save(saved.getPatient().getId(), saved.getId(), tokens);
+        });
+    }
+
+    private String attachOwners(MedicalRecord record, Set<ERole> roles, Long userId, Long patientId) {
+        if (roles.contains(ERole.ROLE_PATIENT)) {
+            Patient patient = patientRepository.findByUserId(userId)
+                    .orElseThrow(() -> new RuntimeException("Patient profile not found for user"));
+            record.setPatient(patient);
+        } else if (roles.contains(ERole.ROLE_DOCTOR)) {
+            Doctor doctor = doctorRepository.findByUserId(userId)
+                    .orElseThrow(() -> new RuntimeException("Doctor profile not found for user"));
+            record.setDoctor(doctor);
+
+            // If doctor is uploading for a patient
+            if (patientId != null) {
+                Patient patient = patientRepository.findById(patientId)
+                        .orElseThrow(() -> new RuntimeException("Patient not found"));
+                record.setPatient(patient);
+            } else {
+                return "Patient ID is required for doctor uploads";
             }
+        } else {
+            return "User is neither patient nor doctor";
+        }
+        return null;
+    }
 
+    @Override
+    public PageResponse<MedicalRecordResponse> getPatientRecords(Long patientId, RecordPageRequest pageRequest,
+                                                                 Long userId) {
+        // Decoded outside the try, so a bad cursor is reported instead of read as the end of the records
+        KeysetCursor after = KeysetCursor.decode(pageRequest.getCursor());
+        try {
             // Check if requesting user has permission to access these records
-            if (isPatient) {
-                Patient patient = patientRepository.findByUser(user)
-                        .orElseThrow(() -> new RuntimeException("Patient profile not found for user"));
-                if (!patient.getId().equals(patientId)) {
-                    return new ArrayList<>();  // Return empty list if not authorized
-                }
-            } else if (!isDoctor && !isAdmin) {
-                return new ArrayList<>();  // Return empty list if not authorized
+            if (!canViewPatientRecords(rolesOf(userId), userId, patientId)) {
+                return new PageResponse<>(new ArrayList<>(), null);  // Return empty page if not authorized
             }
 
-            Patient patient = patientRepository.findById(patientId)
-                    .orElseThrow(() -> new RuntimeException("Patient not found"));
+            return findSummaryPage(patientId, null, pageRequest, after);
+        } catch (Exception e) {
+            return new PageResponse<>(new ArrayList<>(), null);
+        }
+    }
 
-            List<MedicalRecord> records = medicalRecordRepository.findByPatient(patient);
-            return records.stream().map(this::mapToResponse).collect(Collectors.toList());
+    @Override
+    public PageResponse<MedicalRecordResponse> searchPatientRecords(Long patientId, RecordSearchRequest searchRequest,
+                                                                    Long userId) {
+        KeysetCursor after = KeysetCursor.decode(searchRequest.getCursor());
+        try {
+            // Same access rules as getPatientRecords
+            if (!canViewPatientRecords(rolesOf(userId), userId, patientId)) {
+                return new PageResponse<>(new ArrayList<>(), null);
+            }
+
+            int pageSize = paginationSettings.resolvePageSize(searchRequest.getSize());
+            List<MedicalRecordResponse> rows = medicalRecordRepository.findSearchPage(patientId, searchRequest,
+                    after, pageSize + 1);
+            return PageResponse.of(rows, pageSize, row -> new KeysetCursor(row.getCreatedAt(), row.getId()));
         } catch (Exception e) {
-            return new ArrayList<>();
+            return new PageResponse<>(new ArrayList<>(), null);
         }
     }
 
     @Override
-    public List<MedicalRecordResponse> getDoctorRecords(Long userId) {
+    public PageResponse<MedicalRecordResponse> searchPatientRecordsByKeywords(Long patientId,
+                                                                              KeywordSearchRequest searchRequest,
+                                                                              Long userId, String sessionId)
+            throws Exception {
+        if (!recordKeywordIndex.isEnabled()) {
+            throw new RuntimeException("Keyword search is not enabled");
+        }
+        if (!canViewPatientRecords(rolesOf(userId), userId, patientId)) {
+            throw new RuntimeException("Access denied: User does not have permission to search these records");
+        }
+        Patient patient = patientRepository.findById(patientId)
+                .orElseThrow(() -> new RuntimeException("Patient not found"));
+
+        int pageSize = paginationSettings.resolvePageSize(searchRequest.getSize());
+        KeysetCursor after = KeysetCursor.decode(searchRequest.getCursor());
+        long beforeRecordId = after != null ? after.getId() : Long.MAX_VALUE;
+
+        // One key unlock and one indexed query per page, however many records the patient has
+        byte[] aesKey = unlockPatientKey(patient, searchRequest.getPassword(), sessionId);
+        List<Long> recordIds;
         try {
-            User user = userRepository.findById(userId)
-                    .orElseThrow(() -> new UsernameNotFoundException("User not found with id: " + userId));
+            // Fetch one extra id to learn whether another page follows
+            recordIds = recordKeywordIndex.findRecordIds(patientId, aesKey, searchRequest.getQuery(),
+                    beforeRecordId, pageSize + 1);
+        } finally {
+            Arrays.fill(aesKey, (byte) 0);
+        }
 
-            Doctor doctor = doctorRepository.findByUser(user)
+        PageResponse<Long> idPage = PageResponse.of(recordIds, pageSize, KeysetCursor::afterId);
+        if (idPage.getItems().isEmpty()) {
+            return new PageResponse<>(new ArrayList<>(), null);
+        }
+        return new PageResponse<>(medicalRecordRepository.findPatientSummariesByIds(patientId, idPage.getItems()),
+                idPage.getNextCursor());
+    }
+
+    @Override
+    public PageResponse<MedicalRecordResponse> getDoctorRecords(RecordPageRequest pageRequest, Long userId) {
+        KeysetCursor after = KeysetCursor.decode(pageRequest.getCursor());
+        try {
+            Long doctorId = doctorRepository.findIdByUserId(userId)
                     .orElseThrow(() -> new RuntimeException("Doctor profile not found for user"));
 
-            List<MedicalRecord> records = medicalRecordRepository.findByDoctor(doctor);
-            return records.stream().map(this::mapToResponse).collect(Collectors.toList());
+            return findSummaryPage(null, doctorId, pageRequest, after);
         } catch (Exception e) {
-            return new ArrayList<>();
+            return new PageResponse<>(new ArrayList<>(), null);
+        }
+    }
+
+    private PageResponse<MedicalRecordResponse> findSummaryPage(Long patientId, Long doctorId,
+                                                                RecordPageRequest pageRequest, KeysetCursor after) {
+        int pageSize = paginationSettings.resolvePageSize(pageRequest.getSize());
+
+        // Fetch one extra row to learn whether another page follows
+        List<MedicalRecordResponse> rows = medicalRecordRepository.findSummaryPage(patientId, doctorId,
+                pageRequest, after, pageSize + 1);
+        return PageResponse.of(rows, pageSize, row -> new KeysetCursor(row.getCreatedAt(), row.getId()));
+    }
+
+    @Override
+    public RecordContentStream openEncryptedContent(Long recordId, Long userId) {
+        Set<ERole> roles = rolesOf(userId);
+
+        MedicalRecordResponse summary = medicalRecordRepository.findSummaryById(recordId)
+                .orElseThrow(() -> new RuntimeException("Record not found"));
+
+        // Ciphertext is visible to the same users who can list the patient's records
+        if (summary.getPatientId() == null || !canViewPatientRecords(roles, userId, summary.getPatientId())) {
+            throw new RuntimeException("Access denied: User does not have permission to access this record");
+        }
+
+        StreamingResponseBody body = out -> readContent(recordId, in -> in.transferTo(out));
+        return new RecordContentStream(summary.getFileName(), MediaType.APPLICATION_OCTET_STREAM_VALUE, body);
+    }
+
+    @Override
+    public long exportPatientRecords(Long patientId, boolean includeContent, Long userId, OutputStream out)
+            throws IOException {
+        if (!canViewPatientRecords(rolesOf(userId), userId, patientId)) {
+            throw new RuntimeException("Access denied: User does not have permission to export these records");
         }
+        if (!patientRepository.existsById(patientId)) {
+            throw new RuntimeException("Patient not found");
+        }
+        return recordExporter.exportPatient(patientId, includeContent, out);
     }
 
     @Override
-    public String decryptRecord(Long recordId, String password, Long userId) throws Exception {
+    public long exportDoctorPanelRecords(Long doctorId, boolean includeContent, Long userId, OutputStream out)
+            throws IOException {
+        // Doctors export their own panel; admins any doctor's
+        if (!rolesOf(userId).contains(ERole.ROLE_ADMIN)) {
+            Long ownDoctorId = doctorRepository.findIdByUserId(userId)
+                    .orElseThrow(() -> new RuntimeException("Doctor profile not found for user"));
+            if (!ownDoctorId.equals(doctorId)) {
+                throw new RuntimeException("Access denied: User does not have permission to export these records");
+            }
+        }
+        if (!doctorRepository.existsById(doctorId)) {
+            throw new RuntimeException("Doctor not found");
+        }
+        return recordExporter.exportPanel(doctorId, includeContent, out);
+    }
+
+    private boolean canViewPatientRecords(Set<ERole> roles, Long userId, Long patientId) {
+        if (roles.contains(ERole.ROLE_PATIENT)) {
+            Long ownPatientId = patientRepository.findIdByUserId(userId)
+                    .orElseThrow(() -> new RuntimeException("Patient profile not found for user"));
+            return ownPatientId.equals(patientId);
+        }
+        return roles.contains(ERole.ROLE_DOCTOR) || roles.contains(ERole.ROLE_ADMIN);
+    }
+
+    /**
+     * Roles of the acting user, read from the authenticated principal when it is that
+     * user, so record operations do not reload the user and its roles
+     */
+    private Set<ERole> rolesOf(Long userId) {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null && authentication.getPrincipal() instanceof UserDetailsImpl) {
+            UserDetailsImpl principal = (UserDetailsImpl) authentication.getPrincipal();
+            if (userId.equals(principal.getId())) {
+                return principal.getRoles();
+            }
+        }
+
         User user = userRepository.findById(userId)
                 .orElseThrow(() -> new UsernameNotFoundException("User not found with id: " + userId));
+        Set<ERole> roles = EnumSet.noneOf(ERole.class);
+        for (Role role : user.getRoles()) {
+            roles.add(role.getName());
+        }
+        return roles;
+    }
+
+    @Override
+    public String decryptRecord(Long recordId, String password, Long userId, String sessionId) throws Exception {
+        MedicalRecord record = findReadableRecord(recordId, userId);
+        Patient patient = record.getPatient();
+
+        byte[] aesKey = unlockPatientKey(patient, password, sessionId);
+        SecretKey key;
+        try {
+            key = encryptionService.toSecretKey(aesKey);
+        } finally {
+            Arrays.fill(aesKey, (byte) 0);
+        }
+        byte[] iv = Base64.getDecoder().decode(patient.getInitializationVector());
+
+        ByteArrayOutputStream content = new ByteArrayOutputStream();
+        readContent(recordId, in -> decryptContent(in, content, key, iv));
+        return new String(content.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public List<DecryptedRecordResponse> decryptRecords(List<Long> recordIds, String password, Long userId,
+                                                        String sessionId) throws Exception {
+        if (recordIds.size() > batchDecryptMaxRecords) {
+            throw new RuntimeException("At most " + batchDecryptMaxRecords + " records can be decrypted at once");
+        }
+
+        // One query authorizes the whole batch; unreadable ids simply do not come back
+        Map<Long, Long> patientIdByRecord = new HashMap<>();
+        for (RecordPatient row : medicalRecordRepository.findReadableRecordPatients(recordIds, userId)) {
+            patientIdByRecord.put(row.getRecordId(), row.getPatientId());
+        }
+
+        // Derive and unwrap each patient's key once, not once per record. A patient whose
+        // key cannot be unlocked fails only that patient's records
+        Map<Long, SecretKey> keys = new HashMap<>();
+        Map<Long, byte[]> ivs = new HashMap<>();
+        for (Patient patient : patientRepository.findAllById(new HashSet<>(patientIdByRecord.values()))) {
+            try {
+                byte[] aesKey = unlockPatientKey(patient, password, sessionId);
+                try {
+                    keys.put(patient.getId(), encryptionService.toSecretKey(aesKey));
+                } finally {
+                    Arrays.fill(aesKey, (byte) 0);
+                }
+                ivs.put(patient.getId(), Base64.getDecoder().decode(patient.getInitializationVector()));
+            } catch (Exception e) {
+                logger.debug("Could not unlock key of patient {} for batch decrypt", patient.getId(), e);
+            }
+        }
+
+        List<CompletableFuture<DecryptedRecordResponse>> results = new ArrayList<>();
+        for (Long recordId : recordIds) {
+            Long patientId = patientIdByRecord.get(recordId);
+            if (patientId == null) {
+                results.add(CompletableFuture.completedFuture(
+                        new DecryptedRecordResponse(recordId, null, "Record not found or access denied")));
+                continue;
+            }
+            SecretKey key = keys.get(patientId);
+            if (key == null) {
+                results.add(CompletableFuture.completedFuture(
+                        new DecryptedRecordResponse(recordId, null, "Could not unlock the patient's key")));
+                continue;
+            }
+            byte[] iv = ivs.get(patientId);
+            results.add(CompletableFuture.supplyAsync(() -> decryptToResponse(recordId, key, iv),
+                    recordDecryptExecutor));
+        }
+
+        // Results keep the order of the requested ids
+        return results.stream()
+                .map(CompletableFuture::join)
+                .collect(Collectors.toList());
+    }
+
+    private DecryptedRecordResponse decryptToResponse(Long recordId, SecretKey key, byte[] iv) {
+        try {
+            ByteArrayOutputStream content = new ByteArrayOutputStream();
+            readContent(recordId, in -> decryptContent(in, content, key, iv));
+            return new DecryptedRecordResponse(recordId, new String(content.toByteArray(), StandardCharsets.UTF_8),
+                    null);
+        } catch (Exception e) {
+            logger.debug("Could not decrypt record {}", recordId, e);
+            return new DecryptedRecordResponse(recordId, null, "Could not decrypt record");
+        }
+    }
+
+    @Override
+    public RecordContentStream openDecryptedRecord(Long recordId, String password, Long userId, String sessionId)
+            throws Exception {
+        MedicalRecord record = findReadableRecord(recordId, userId);
+        Patient patient = record.getPatient();
+
+        // Authorize and unlock before the response starts, so failures still produce an error status
+        byte[] aesKey = unlockPatientKey(patient, password, sessionId);
+        SecretKey key = encryptionService.toSecretKey(aesKey);
+        Arrays.fill(aesKey, (byte) 0);
+
+        byte[] iv = Base64.getDecoder().decode(patient.getInitializationVector());
+        StreamingResponseBody body = out -> readContent(recordId, in -> decryptContent(in, out, key, iv));
+
+        return new RecordContentStream(record.getFileName(), record.getContentType(), body);
+    }
+
+    private void decryptContent(InputStream encryptedContent, OutputStream out, SecretKey key, byte[] iv)
+            throws IOException, GeneralSecurityException {
+        InputStream in = new BufferedInputStream(encryptedContent);
+        in.mark(CHUNKED_HEADER_PROBE);
+        byte[] probe = in.readNBytes(CHUNKED_HEADER_PROBE);
+        in.reset();
+
+        if (StreamingRecordCipher.isChunked(probe)) {
+            streamingRecordCipher.decrypt(in, out, key);
+        } else {
+            // Legacy records are a single GCM message under the patient's IV
+            out.write(encryptionService.decrypt(in.readAllBytes(), key, iv));
+        }
+    }
+
+    /**
+     * Open the stored ciphertext of a record inside a read-only transaction,
+     * which large objects require for streaming reads.
+     */
+    private void readContent(Long recordId, ContentReader reader) {
+        readOnlyTransactionTemplate.executeWithoutResult(status -> {
+            MedicalRecordContent content = medicalRecordContentRepository.findById(recordId)
+                    .orElseThrow(() -> new RuntimeException("Record content not found"));
+            try (InputStream in = content.getData().getBinaryStream()) {
+                reader.read(in);
+            } catch (IOException | SQLException | GeneralSecurityException e) {
+                throw new RuntimeException("Could not read record content: " + e.getMessage(), e);
+            }
+        });
+    }
+
+    @FunctionalInterface
+    private interface ContentReader {
+        void read(InputStream in) throws IOException, GeneralSecurityException;
+    }
+
+    private MedicalRecord findReadableRecord(Long recordId, Long userId) {
+        Set<ERole> roles = rolesOf(userId);
 
         MedicalRecord record = medicalRecordRepository.findById(recordId)
                 .orElseThrow(() -> new RuntimeException("Record not found"));
@@ -171,9 +593,9 @@ public class MedicalRecordServiceImpl implements MedicalRecordService {
         }
 
         // If the user is a doctor assigned to this patient
-        if (!hasAccess) {
-            Doctor doctor = doctorRepository.findByUser(user).orElse(null);
-            if (doctor != null && doctor.getPatients().contains(patient)) {
+        if (!hasAccess && roles.contains(ERole.ROLE_DOCTOR)) {
+            Long doctorId = doctorRepository.findIdByUserId(userId).orElse(null);
+            if (doctorId != null && assignmentIndex.isAssigned(doctorId, patient.getId())) {
                 hasAccess = true;
             }
         }
@@ -181,7 +603,23 @@ public class MedicalRecordServiceImpl implements MedicalRecordService {
         if (!hasAccess) {
             throw new RuntimeException("Access denied: User does not have permission to decrypt this record");
         }
+        return record;
+    }
 
+    private byte[] unlockPatientKey(Patient patient, String password, String sessionId) throws Exception {
+        // Reuse the key if this session has already unlocked it
+        byte[] aesKey = keyVault.get(sessionId, patient.getId());
+        if (aesKey == null) {
+            if (password == null || password.isEmpty()) {
+                throw new RuntimeException("Password is required");
+            }
+            aesKey = unwrapPatientKey(patient, password);
+            keyVault.put(sessionId, patient.getId(), aesKey);
+        }
+        return aesKey;
+    }
+
+    private byte[] unwrapPatientKey(Patient patient, String password) throws Exception {
         // Get salt for password derivation
         String salt = patient.getPasswordSalt();
         
@@ -197,34 +635,6 @@ public class MedicalRecordServiceImpl implements MedicalRecordService {
         String encryptedAesKey = patient.getEncryptedAesKey();
         String iv = patient.getInitializationVector();
         String aesKey = encryptionService.decryptAESKey(encryptedAesKey, passwordDerivedKey, iv);
-
-        // Decrypt the record content using the AES key
-        return encryptionService.decrypt(record.getEncryptedContent(), aesKey, iv);
-    }
-
-    private MedicalRecordResponse mapToResponse(MedicalRecord record) {
-        MedicalRecordResponse response = new MedicalRecordResponse();
-        response.setId(record.getId());
-        
-        if (record.getPatient() != null) {
-            response.setPatientId(record.getPatient().getId());
-            User patientUser = record.getPatient().getUser();
-            response.setPatientName(patientUser.getFirstName() + " " + patientUser.getLastName());
-        }
-        
-        response.setRecordType(record.getRecordType());
-        response.setEncryptedContent(record.getEncryptedContent());
-        response.setFileName(record.getFileName());
-        response.setContentType(record.getContentType());
-        response.setCreatedAt(record.getCreatedAt());
-        response.setUpdatedAt(record.getUpdatedAt());
-        
-        if (record.getDoctor() != null) {
-            response.setDoctorId(record.getDoctor().getId());
-            User doctorUser = record.getDoctor().getUser();
-            response.setDoctorName(doctorUser.getFirstName() + " " + doctorUser.getLastName());
-        }
-        
-        return response;
+        return Base64.getDecoder().decode(aesKey);
     }
-} 
\ No newline at end of file
+}
\ No newline at end of file
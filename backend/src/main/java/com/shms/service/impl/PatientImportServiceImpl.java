@@ -0,0 +1,275 @@
+package com.shms.service.impl;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+
+import javax.annotation.PostConstruct;
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.validation.ConstraintViolation;
+import javax.validation.Validator;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.shms.config.RoleRegistry;
+import com.shms.model.ERole;
+import com.shms.model.Patient;
+import com.shms.model.Role;
+import com.shms.model.User;
+import com.shms.payload.request.SignupRequest;
+import com.shms.payload.response.ImportRowError;
+import com.shms.payload.response.ImportSummary;
+import com.shms.repository.UserRepository;
+import com.shms.security.encryption.EncryptionService;
+import com.shms.security.encryption.WrappedPatientKey;
+import com.shms.service.PatientImportService;
+
+/**
+ * Imports patients from NDJSON, one {@link SignupRequest} per line.
+ * Rows are read in chunks. Each chunk is checked for duplicate usernames and emails
+ * with two set-based queries, hashed and keyed in parallel on the import pool, and
+ * saved in one transaction with batched inserts. Failed rows are reported as NDJSON
+ * lines, followed by a summary line.
+ */
+@Service
+public class PatientImportServiceImpl implements PatientImportService {
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private RoleRegistry roleRegistry;
+
+    @Autowired
+    private PasswordEncoder encoder;
+
+    @Autowired
+    private EncryptionService encryptionService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private Validator validator;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    @Qualifier("patientImportPool")
+    private ForkJoinPool patientImportPool;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Value("${shms.patient-import.batch-size}")
+    private int batchSize;
+
+    @Value("${spring.jpa.properties.hibernate.jdbc.batch_size}")
+    private int jdbcBatchSize;
+
+    private TransactionTemplate transactionTemplate;
+
+    @PostConstruct
+    public void initTransactionTemplate() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @Override
+    public ImportSummary importPatients(InputStream ndjson, OutputStream report) throws IOException {
+        Role patientRole = roleRegistry.get(ERole.ROLE_PATIENT);
+
+        ImportSummary summary = new ImportSummary(0, 0);
+        BufferedReader reader = new BufferedReader(new InputStreamReader(ndjson, StandardCharsets.UTF_8));
+        List<ImportRow> chunk = new ArrayList<>(batchSize);
+        long lineNumber = 0;
+        String line;
+
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (line.isBlank()) {
+                continue;
+            }
+            chunk.add(new ImportRow(lineNumber, line));
+            if (chunk.size() == batchSize) {
+                importChunk(chunk, patientRole, summary, report);
+                chunk = new ArrayList<>(batchSize);
+            }
+        }
+        if (!chunk.isEmpty()) {
+            importChunk(chunk, patientRole, summary, report);
+        }
+
+        writeLine(report, summary);
+        report.flush();
+        return summary;
+    }
+
+    private void importChunk(List<ImportRow> chunk, Role patientRole, ImportSummary summary, OutputStream report)
+            throws IOException {
+        for (ImportRow row : chunk) {
+            parse(row);
+        }
+        rejectDuplicates(chunk);
+
+        List<ImportRow> accepted = chunk.stream()
+                .filter(row -> row.error == null)
+                .collect(Collectors.toList());
+
+        // BCrypt and PBKDF2 dominate the cost of a row, so they run in parallel
+        try {
+            patientImportPool.submit(() -> accepted.parallelStream().forEach(row -> prepare(row, patientRole)))
+                    .get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Import interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IOException("Could not prepare patients: " + e.getCause().getMessage(), e.getCause());
+        }
+
+        List<ImportRow> prepared = accepted.stream()
+                .filter(row -> row.error == null)
+                .collect(Collectors.toList());
+        save(prepared);
+
+        for (ImportRow row : chunk) {
+            if (row.error != null) {
+                summary.setFailed(summary.getFailed() + 1);
+                String username = row.request != null ? row.request.getUsername() : null;
+                writeLine(report, new ImportRowError(row.lineNumber, username, row.error));
+            } else {
+                summary.setImported(summary.getImported() + 1);
+            }
+        }
+        report.flush();
+    }
+
+    private void parse(ImportRow row) {
+        try {
+            row.request = objectMapper.readValue(row.line, SignupRequest.class);
+        } catch (IOException e) {
+            row.error = "Invalid JSON: " + e.getOriginalMessage();
+            return;
+        }
+
+        Set<ConstraintViolation<SignupRequest>> violations = validator.validate(row.request);
+        if (!violations.isEmpty()) {
+            row.error = violations.stream()
+                    .map(violation -> violation.getPropertyPath() + " " + violation.getMessage())
+                    .sorted()
+                    .collect(Collectors.joining(", "));
+        }
+    }
+
+    private void rejectDuplicates(List<ImportRow> chunk) {
+        List<ImportRow> valid = chunk.stream()
+                .filter(row -> row.error == null)
+                .collect(Collectors.toList());
+        if (valid.isEmpty()) {
+            return;
+        }
+
+        Set<String> takenUsernames = new HashSet<>(userRepository.findExistingUsernames(
+                valid.stream().map(row -> row.request.getUsername()).collect(Collectors.toSet())));
+        Set<String> takenEmails = new HashSet<>(userRepository.findExistingEmails(
+                valid.stream().map(row -> row.request.getEmail()).collect(Collectors.toSet())));
+
+        // add() also catches rows that repeat an earlier row of the same chunk
+        for (ImportRow row : valid) {
+            if (!takenUsernames.add(row.request.getUsername())) {
+                row.error = "Username is already taken!";
+            } else if (!takenEmails.add(row.request.getEmail())) {
+                row.error = "Email is already in use!";
+            }
+        }
+    }
+
+    private void prepare(ImportRow row, Role patientRole) {
+        SignupRequest request = row.request;
+        try {
+            User user = new User();
+            user.setUsername(request.getUsername());
+            user.setEmail(request.getEmail());
+            user.setPassword(encoder.encode(request.getPassword()));
+            user.setFirstName(request.getFirstName());
+            user.setLastName(request.getLastName());
+            user.getRoles().add(patientRole);
+
+            WrappedPatientKey patientKey = encryptionService.newPatientKey(request.getPassword());
+
+            Patient patient = new Patient();
+            patient.setUser(user);
+            patient.setDateOfBirth(request.getDateOfBirth());
+            patient.setContactNumber(request.getContactNumber());
+            patient.setAddress(request.getAddress());
+            patient.setEncryptedAesKey(patientKey.getEncryptedAesKey());
+            patient.setInitializationVector(patientKey.getInitializationVector());
+            patient.setPasswordSalt(patientKey.getPasswordSalt());
+
+            row.patient = patient;
+        } catch (Exception e) {
+            row.error = "Could not generate encryption key: " + e.getMessage();
+        }
+    }
+
+    private void save(List<ImportRow> prepared) {
+        if (prepared.isEmpty()) {
+            return;
+        }
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                int pending = 0;
+                for (ImportRow row : prepared) {
+                    entityManager.persist(row.patient.getUser());
+                    entityManager.persist(row.patient);
+                    if (++pending == jdbcBatchSize) {
+                        entityManager.flush();
+                        entityManager.clear();
+                        pending = 0;
+                    }
+                }
+            });
+        } catch (RuntimeException e) {
+            // A concurrent registration can still win a unique constraint; the chunk is rolled back
+            for (ImportRow row : prepared) {
+                row.error = "Could not save chunk: " + e.getMessage();
+            }
+        }
+    }
+
+    private void writeLine(OutputStream report, Object value) throws IOException {
+        report.write(objectMapper.writeValueAsBytes(value));
+        report.write('\n');
+    }
+
+    private static final class ImportRow {
+        private final long lineNumber;
+        private final String line;
+        private SignupRequest request;
+        private Patient patient;
+        private String error;
+
+        ImportRow(long lineNumber, String line) {
+            this.lineNumber = lineNumber;
+            this.line = line;
+        }
+    }
+}
@@ -0,0 +1,240 @@
+package com.shms.service.impl;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import javax.annotation.PostConstruct;
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.validation.ConstraintViolation;
+import javax.validation.Validator;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.shms.model.MedicalRecord;
+import com.shms.payload.request.MedicalRecordRequest;
+import com.shms.payload.response.ImportSummary;
+import com.shms.payload.response.RecordUploadError;
+
+/**
+ * Stores client-encrypted records from NDJSON, one {@link MedicalRecordRequest}
+ * per line. Rows are read and committed in chunks of shms.bulk-upload.batch-size,
+ * so memory holds one chunk and a failure only rolls back its own chunk. Record
+ * rows go in as batched inserts. Large objects cannot be written in a JDBC batch,
+ * so the ciphertext is staged in a temporary bytea table with batched inserts and
+ * turned into large objects by one INSERT ... SELECT per chunk. Failed rows are
+ * reported as NDJSON lines, followed by a summary line.
+ */
+@Component
+public class RecordBulkUploader {
+    private static final Logger logger = LoggerFactory.getLogger(RecordBulkUploader.class);
+
+    // Temporary tables belong to the connection; rows never outlive the chunk's transaction
+    private static final String CREATE_STAGING = "CREATE TEMPORARY TABLE IF NOT EXISTS staged_record_contents "
+            + "(record_id bigint PRIMARY KEY, data bytea NOT NULL) ON COMMIT DELETE ROWS";
+
+    private static final String STAGE_CONTENT = "INSERT INTO staged_record_contents (record_id, data) VALUES (?, ?)";
+
+    private static final String STORE_CONTENT = "INSERT INTO medical_record_contents (record_id, data) "
+            + "SELECT record_id, lo_from_bytea(0, data) FROM staged_record_contents";
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private Validator validator;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Value("${shms.bulk-upload.batch-size}")
+    private int batchSize;
+
+    @Value("${spring.jpa.properties.hibernate.jdbc.batch_size}")
+    private int jdbcBatchSize;
+
+    private TransactionTemplate transactionTemplate;
+
+    @PostConstruct
+    public void initTransactionTemplate() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Store every record of an NDJSON stream
+     * @param owners Carries the patient and doctor every record is saved under
+     * @param ndjson One record per line
+     * @param report Destination for a line per failed record and the summary
+     * @return Counts of stored and failed records
+     */
+    public ImportSummary upload(MedicalRecord owners, InputStream ndjson, OutputStream report) throws IOException {
+        ImportSummary summary = new ImportSummary(0, 0);
+        BufferedReader reader = new BufferedReader(new InputStreamReader(ndjson, StandardCharsets.UTF_8));
+        List<UploadRow> chunk = new ArrayList<>(batchSize);
+        long lineNumber = 0;
+        String line;
+
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (line.isBlank()) {
+                continue;
+            }
+            chunk.add(new UploadRow(lineNumber, line));
+            if (chunk.size() == batchSize) {
+                uploadChunk(chunk, owners, summary, report);
+                chunk = new ArrayList<>(batchSize);
+            }
+        }
+        if (!chunk.isEmpty()) {
+            uploadChunk(chunk, owners, summary, report);
+        }
+
+        writeLine(report, summary);
+        report.flush();
+        return summary;
+    }
+
+    private void uploadChunk(List<UploadRow> chunk, MedicalRecord owners, ImportSummary summary,
+                             OutputStream report) throws IOException {
+        for (UploadRow row : chunk) {
+            parse(row);
+        }
+
+        List<UploadRow> accepted = chunk.stream()
+                .filter(row -> row.error == null)
+                .collect(Collectors.toList());
+        save(accepted, owners);
+
+        for (UploadRow row : chunk) {
+            if (row.error != null) {
+                summary.setFailed(summary.getFailed() + 1);
+                String fileName = row.request != null ? row.request.getFileName() : null;
+                writeLine(report, new RecordUploadError(row.lineNumber, fileName, row.error));
+            } else {
+                summary.setImported(summary.getImported() + 1);
+            }
+        }
+        report.flush();
+    }
+
+    private void parse(UploadRow row) {
+        try {
+            row.request = objectMapper.readValue(row.line, MedicalRecordRequest.class);
+        } catch (IOException e) {
+            row.error = "Invalid JSON: " + e.getOriginalMessage();
+            return;
+        } finally {
+            // Only one copy of a record's content is kept while the chunk fills
+            row.line = null;
+        }
+
+        Set<ConstraintViolation<MedicalRecordRequest>> violations = validator.validate(row.request);
+        if (!violations.isEmpty()) {
+            row.error = violations.stream()
+                    .map(violation -> violation.getPropertyPath() + " " + violation.getMessage())
+                    .sorted()
+                    .collect(Collectors.joining(", "));
+            return;
+        }
+
+        try {
+            row.content = Base64.getDecoder().decode(row.request.getEncryptedContent());
+            row.request.setEncryptedContent(null);
+        } catch (IllegalArgumentException e) {
+            row.error = "encryptedContent is not valid Base64";
+        }
+    }
+
+    private void save(List<UploadRow> accepted, MedicalRecord owners) {
+        if (accepted.isEmpty()) {
+            return;
+        }
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                LocalDateTime now = LocalDateTime.now();
+                int pending = 0;
+                for (UploadRow row : accepted) {
+                    MedicalRecord record = new MedicalRecord();
+                    record.setPatient(owners.getPatient());
+                    record.setDoctor(owners.getDoctor());
+                    record.setRecordType(row.request.getRecordType());
+                    record.setFileName(row.request.getFileName());
+                    record.setContentType(row.request.getContentType());
+                    record.setContentLength((long) row.content.length);
+                    record.setCreatedAt(now);
+                    record.setUpdatedAt(now);
+
+                    // Sequence ids are assigned here, so inserts stay queued until the flush batches them
+                    entityManager.persist(record);
+                    row.recordId = record.getId();
+                    if (++pending == jdbcBatchSize) {
+                        entityManager.flush();
+                        entityManager.clear();
+                        pending = 0;
+                    }
+                }
+                entityManager.flush();
+                entityManager.clear();
+
+                jdbcTemplate.execute(CREATE_STAGING);
+                jdbcTemplate.batchUpdate(STAGE_CONTENT, accepted, jdbcBatchSize, (statement, row) -> {
+                    statement.setLong(1, row.recordId);
+                    statement.setBytes(2, row.content);
+                });
+                jdbcTemplate.update(STORE_CONTENT);
+            });
+        } catch (RuntimeException e) {
+            logger.warn("Could not save a chunk of {} uploaded records", accepted.size(), e);
+            for (UploadRow row : accepted) {
+                row.error = "Could not save chunk";
+            }
+        } finally {
+            for (UploadRow row : accepted) {
+                row.content = null;
+            }
+        }
+    }
+
+    private void writeLine(OutputStream report, Object value) throws IOException {
+        report.write(objectMapper.writeValueAsBytes(value));
+        report.write('\n');
+    }
+
+    private static final class UploadRow {
+        private final long lineNumber;
+        private String line;
+        private MedicalRecordRequest request;
+        private byte[] content;
+        private Long recordId;
+        private String error;
+
+        UploadRow(long lineNumber, String line) {
+            this.lineNumber = lineNumber;
+            this.line = line;
+        }
+    }
+}
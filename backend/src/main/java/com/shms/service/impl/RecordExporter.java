@@ -0,0 +1,167 @@
+package com.shms.service.impl;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.sql.Blob;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+
+import javax.annotation.PostConstruct;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Writes medical records as NDJSON, one record per line with its ciphertext in
+ * Base64. Rows are read with plain JDBC through a forward-only cursor, so no
+ * entity is ever created, and each record's ciphertext is copied from its large
+ * object straight into the output. Heap use does not depend on the number or
+ * size of the records exported.
+ */
+@Component
+public class RecordExporter {
+
+    private static final String EXPORT_SELECT = "SELECT r.id, r.patient_id, r.doctor_id, r.record_type, r.file_name, "
+            + "r.content_type, r.content_length, r.created_at, r.updated_at, c.data "
+            + "FROM medical_records r LEFT JOIN medical_record_contents c ON c.record_id = r.id ";
+
+    private static final String SUMMARY_SELECT = "SELECT r.id, r.patient_id, r.doctor_id, r.record_type, r.file_name, "
+            + "r.content_type, r.content_length, r.created_at, r.updated_at, NULL AS data "
+            + "FROM medical_records r ";
+
+    // Both orders are served by idx_medical_records_patient_created
+    private static final String PATIENT_WHERE = "WHERE r.patient_id = ? ORDER BY r.created_at, r.id";
+
+    private static final String PANEL_WHERE = "WHERE r.patient_id IN "
+            + "(SELECT patient_id FROM doctor_patients WHERE doctor_id = ?) "
+            + "ORDER BY r.patient_id, r.created_at, r.id";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${shms.record-export.fetch-size}")
+    private int fetchSize;
+
+    private TransactionTemplate transactionTemplate;
+
+    @PostConstruct
+    public void initTransactionTemplate() {
+        // The cursor and the large objects can only be read inside a transaction
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.setReadOnly(true);
+    }
+
+    /**
+     * Export every record of a patient, oldest first
+     * @param includeContent Whether to write each record's ciphertext
+     * @return Number of records written
+     */
+    public long exportPatient(Long patientId, boolean includeContent, OutputStream out) throws IOException {
+        return export(select(includeContent) + PATIENT_WHERE, patientId, includeContent, out);
+    }
+
+    /**
+     * Export every record of the patients assigned to a doctor, grouped by patient
+     * @param includeContent Whether to write each record's ciphertext
+     * @return Number of records written
+     */
+    public long exportPanel(Long doctorId, boolean includeContent, OutputStream out) throws IOException {
+        return export(select(includeContent) + PANEL_WHERE, doctorId, includeContent, out);
+    }
+
+    private static String select(boolean includeContent) {
+        return includeContent ? EXPORT_SELECT : SUMMARY_SELECT;
+    }
+
+    private long export(String sql, Long id, boolean includeContent, OutputStream out) throws IOException {
+        try (JsonGenerator generator = objectMapper.createGenerator(out, JsonEncoding.UTF8)) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            generator.setRootValueSeparator(null);
+
+            long[] written = new long[1];
+            transactionTemplate.executeWithoutResult(status -> jdbcTemplate.query(connection -> {
+                PreparedStatement statement = connection.prepareStatement(sql,
+                        ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+                statement.setFetchSize(fetchSize);
+                statement.setLong(1, id);
+                return statement;
+            }, (RowCallbackHandler) rs -> {
+                try {
+                    writeRecord(generator, rs, includeContent);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                written[0]++;
+            }));
+            generator.flush();
+            return written[0];
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private void writeRecord(JsonGenerator generator, ResultSet rs, boolean includeContent)
+            throws IOException, SQLException {
+        generator.writeStartObject();
+        generator.writeNumberField("id", rs.getLong("id"));
+        writeLong(generator, "patientId", rs, "patient_id");
+        writeLong(generator, "doctorId", rs, "doctor_id");
+        generator.writeStringField("recordType", rs.getString("record_type"));
+        generator.writeStringField("fileName", rs.getString("file_name"));
+        generator.writeStringField("contentType", rs.getString("content_type"));
+        writeLong(generator, "contentLength", rs, "content_length");
+        writeTimestamp(generator, "createdAt", rs.getTimestamp("created_at"));
+        writeTimestamp(generator, "updatedAt", rs.getTimestamp("updated_at"));
+
+        if (includeContent) {
+            generator.writeFieldName("content");
+            Blob data = rs.getBlob("data");
+            if (data == null) {
+                generator.writeNull();
+            } else {
+                // Free each large object as soon as it is copied so descriptors do not pile up
+                try (InputStream in = data.getBinaryStream()) {
+                    generator.writeBinary(in, -1);
+                } finally {
+                    data.free();
+                }
+            }
+        }
+
+        generator.writeEndObject();
+        generator.writeRaw('\n');
+    }
+
+    private static void writeLong(JsonGenerator generator, String field, ResultSet rs, String column)
+            throws IOException, SQLException {
+        long value = rs.getLong(column);
+        if (rs.wasNull()) {
+            generator.writeNullField(field);
+        } else {
+            generator.writeNumberField(field, value);
+        }
+    }
+
+    private static void writeTimestamp(JsonGenerator generator, String field, Timestamp value) throws IOException {
+        generator.writeStringField(field, value != null ? value.toLocalDateTime().toString() : null);
+    }
+}
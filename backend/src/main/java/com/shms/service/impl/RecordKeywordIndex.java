@@ -0,0 +1,114 @@
+package com.shms.service.impl;
+
+import java.security.GeneralSecurityException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import com.shms.repository.RecordKeywordTokenRepository;
+import com.shms.security.encryption.BlindIndex;
+import com.shms.security.encryption.KeywordCollector;
+
+/**
+ * Keyword search over encrypted records without decrypting them. With
+ * shms.blind-index.enabled, text records uploaded in plaintext are tokenised while
+ * they are encrypted and their blind index tokens stored in record_keyword_tokens.
+ * A search then costs one key unlock and one indexed query. Records stored before
+ * the index was enabled, and records encrypted by the client, are not indexed.
+ */
+@Component
+public class RecordKeywordIndex {
+
+    @Autowired
+    private RecordKeywordTokenRepository recordKeywordTokenRepository;
+
+    @Autowired
+    private BlindIndex blindIndex;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Value("${shms.blind-index.enabled}")
+    private boolean enabled;
+
+    @Value("${shms.blind-index.max-keywords-per-record}")
+    private int maxKeywordsPerRecord;
+
+    @Value("${spring.jpa.properties.hibernate.jdbc.batch_size}")
+    private int jdbcBatchSize;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Start collecting keywords for an upload
+     * @param contentType Content type of the upload
+     * @return A collector, or null if the index is off or the content is not text
+     */
+    public KeywordCollector newCollector(String contentType) {
+        if (!enabled || !isText(contentType)) {
+            return null;
+        }
+        return new KeywordCollector(maxKeywordsPerRecord);
+    }
+
+    /**
+     * Compute the tokens of the keywords collected from an upload
+     * @param aesKey The patient's raw AES key
+     */
+    public Set<Long> tokens(byte[] aesKey, KeywordCollector collector) throws GeneralSecurityException {
+        return blindIndex.tokens(aesKey, collector.getKeywords());
+    }
+
+    /**
+     * Store the tokens of a record; call inside the transaction that saves the record
+     */
+    public void save(Long patientId, Long recordId, Set<Long> tokens) {
+        if (tokens == null || tokens.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate(
+                "INSERT INTO record_keyword_tokens (patient_id, token, record_id) VALUES (?, ?, ?) "
+                        + "ON CONFLICT DO NOTHING",
+                new ArrayList<>(tokens), jdbcBatchSize, (statement, token) -> {
+                    statement.setLong(1, patientId);
+                    statement.setLong(2, token);
+                    statement.setLong(3, recordId);
+                });
+    }
+
+    /**
+     * Find a patient's records containing every keyword of a query
+     * @param aesKey The patient's raw AES key
+     * @param query Free text; split into keywords the same way records are
+     * @param beforeRecordId Only return record ids below this one
+     * @param limit Maximum number of record ids
+     * @return Matching record ids, newest first
+     */
+    public List<Long> findRecordIds(Long patientId, byte[] aesKey, String query, long beforeRecordId, int limit)
+            throws GeneralSecurityException {
+        Set<String> keywords = KeywordCollector.keywordsOf(query);
+        if (keywords.isEmpty()) {
+            return Collections.emptyList();
+        }
+        Set<Long> tokens = blindIndex.tokens(aesKey, keywords);
+        return recordKeywordTokenRepository.findRecordIdsWithAllTokens(patientId, tokens, tokens.size(),
+                beforeRecordId, PageRequest.of(0, limit));
+    }
+
+    private static boolean isText(String contentType) {
+        if (contentType == null) {
+            return false;
+        }
+        String type = contentType.toLowerCase();
+        return type.startsWith("text/") || type.startsWith("application/json") || type.startsWith("application/xml");
+    }
+}
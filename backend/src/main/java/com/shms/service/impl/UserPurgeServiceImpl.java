@@ -0,0 +1,275 @@
+package com.shms.service.impl;
+
+import java.sql.Array;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+import javax.annotation.PostConstruct;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.shms.model.EPurgeStatus;
+import com.shms.model.User;
+import com.shms.model.UserPurgeJob;
+import com.shms.repository.UserPurgeJobRepository;
+import com.shms.repository.UserRepository;
+import com.shms.security.encryption.PatientKeyVault;
+import com.shms.security.services.UserDetailsServiceImpl;
+import com.shms.service.UserPurgeService;
+
+/**
+ * Deletes users in the background with set-based SQL. A patient's records go in
+ * chunks of shms.user-purge.batch-size, each chunk in its own short transaction
+ * that also deletes their content, drops their keyword tokens and advances the
+ * job's progress; RecordContentTrigger frees the content's large objects. A
+ * doctor's authored records are kept and detached from the doctor in chunks.
+ * Every step deletes by predicate, so a job interrupted by a restart is simply
+ * run again from the start.
+ */
+@Service
+public class UserPurgeServiceImpl implements UserPurgeService, SmartInitializingSingleton {
+    private static final Logger logger = LoggerFactory.getLogger(UserPurgeServiceImpl.class);
+
+    private static final Set<EPurgeStatus> ACTIVE = EnumSet.of(EPurgeStatus.PENDING, EPurgeStatus.RUNNING);
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private UserPurgeJobRepository userPurgeJobRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    @Qualifier("userPurgeExecutor")
+    private ThreadPoolTaskExecutor userPurgeExecutor;
+
+    @Autowired
+    private UserDetailsServiceImpl userDetailsService;
+
+    @Autowired
+    private PatientKeyVault patientKeyVault;
+
+    @Autowired
+    private AssignmentIndex assignmentIndex;
+
+    @Value("${shms.user-purge.batch-size}")
+    private int batchSize;
+
+    private TransactionTemplate transactionTemplate;
+
+    @PostConstruct
+    public void initTransactionTemplate() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        List<Long> unfinished = userPurgeJobRepository.findIdsByStatusIn(ACTIVE);
+        if (!unfinished.isEmpty()) {
+            logger.info("Resuming {} user purge jobs", unfinished.size());
+            unfinished.forEach(this::submit);
+        }
+    }
+
+    @Override
+    public UserPurgeJob requestPurge(Long userId) {
+        User user = userRepository.findById(userId)
+                .orElseThrow(() -> new RuntimeException("User not found with id: " + userId));
+
+        if (user.getUsername().equals("admin")) {
+            throw new RuntimeException("Cannot delete admin user");
+        }
+
+        // A repeated request returns the job already under way
+        UserPurgeJob active = userPurgeJobRepository.findFirstByUserIdAndStatusIn(userId, ACTIVE).orElse(null);
+        if (active != null) {
+            return active;
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        UserPurgeJob job = new UserPurgeJob();
+        job.setUserId(userId);
+        job.setUsername(user.getUsername());
+        job.setStatus(EPurgeStatus.PENDING);
+        job.setCreatedAt(now);
+        job.setUpdatedAt(now);
+        job = userPurgeJobRepository.save(job);
+
+        submit(job.getId());
+        return job;
+    }
+
+    @Override
+    public UserPurgeJob getJob(Long jobId) {
+        return userPurgeJobRepository.findById(jobId)
+                .orElseThrow(() -> new RuntimeException("Purge job not found with id: " + jobId));
+    }
+
+    private void submit(Long jobId) {
+        userPurgeExecutor.execute(() -> run(jobId));
+    }
+
+    private void run(Long jobId) {
+        UserPurgeJob job = userPurgeJobRepository.findById(jobId).orElse(null);
+        if (job == null || !ACTIVE.contains(job.getStatus())) {
+            return;
+        }
+        updateStatus(job, EPurgeStatus.RUNNING, null);
+
+        try {
+            purge(job);
+            updateStatus(job, EPurgeStatus.COMPLETED, null);
+            logger.info("Purged user {} ({} records)", job.getUsername(), job.getRecordsDeleted());
+        } catch (RuntimeException e) {
+            logger.error("Purge job {} for user {} failed", jobId, job.getUsername(), e);
+            updateStatus(job, EPurgeStatus.FAILED, e.getMessage());
+        }
+    }
+
+    private void purge(UserPurgeJob job) {
+        Long userId = job.getUserId();
+        Long patientId = findProfileId("patients", userId);
+        Long doctorId = findProfileId("doctors", userId);
+
+        if (patientId != null) {
+            int deleted;
+            do {
+                deleted = transactionTemplate.execute(status -> {
+                    int count = jdbcTemplate.execute(
+                            (ConnectionCallback<Integer>) connection -> deleteRecordChunk(connection, patientId));
+                    userPurgeJobRepository.addRecordsDeleted(job.getId(), count);
+                    return count;
+                });
+                job.setRecordsDeleted(job.getRecordsDeleted() + deleted);
+            } while (deleted == batchSize);
+
+            List<Long> doctorIds = new ArrayList<>();
+            do {
+                deleted = transactionTemplate.execute(status -> {
+                    List<Long> chunk = jdbcTemplate.queryForList(
+                            "DELETE FROM doctor_patients WHERE ctid IN (SELECT ctid FROM doctor_patients "
+                                    + "WHERE patient_id = ? LIMIT ?) RETURNING doctor_id",
+                            Long.class, patientId, batchSize);
+                    doctorIds.addAll(chunk);
+                    return chunk.size();
+                });
+            } while (deleted == batchSize);
+            doctorIds.forEach(assignmentIndex::evictDoctor);
+        }
+
+        if (doctorId != null) {
+            // Records a doctor wrote belong to the patient and stay
+            int updated;
+            do {
+                updated = transactionTemplate.execute(status -> jdbcTemplate.update(
+                        "UPDATE medical_records SET doctor_id = NULL WHERE id IN "
+                                + "(SELECT id FROM medical_records WHERE doctor_id = ? LIMIT ?)",
+                        doctorId, batchSize));
+            } while (updated == batchSize);
+            do {
+                updated = transactionTemplate.execute(status -> jdbcTemplate.update(
+                        "DELETE FROM doctor_patients WHERE ctid IN (SELECT ctid FROM doctor_patients "
+                                + "WHERE doctor_id = ? LIMIT ?)",
+                        doctorId, batchSize));
+            } while (updated == batchSize);
+        }
+
+        transactionTemplate.executeWithoutResult(status -> {
+            if (patientId != null) {
+                jdbcTemplate.update("DELETE FROM record_keyword_tokens WHERE patient_id = ?", patientId);
+                jdbcTemplate.update("DELETE FROM patients WHERE id = ?", patientId);
+            }
+            if (doctorId != null) {
+                jdbcTemplate.update("DELETE FROM doctors WHERE id = ?", doctorId);
+            }
+            jdbcTemplate.update("DELETE FROM user_roles WHERE user_id = ?", userId);
+            jdbcTemplate.update("DELETE FROM users WHERE id = ?", userId);
+        });
+
+        userDetailsService.evictUser(job.getUsername());
+        if (patientId != null) {
+            patientKeyVault.evictPatient(patientId);
+        }
+        if (doctorId != null) {
+            assignmentIndex.evictDoctor(doctorId);
+        }
+    }
+
+    private Long findProfileId(String table, Long userId) {
+        List<Long> ids = jdbcTemplate.queryForList("SELECT id FROM " + table + " WHERE user_id = ?", Long.class,
+                userId);
+        return ids.isEmpty() ? null : ids.get(0);
+    }
+
+    /**
+     * Delete the next chunk of a patient's records with their content and tokens
+     * @return Number of records deleted
+     */
+    private int deleteRecordChunk(Connection connection, Long patientId) throws SQLException {
+        List<Long> recordIds = new ArrayList<>(batchSize);
+        try (PreparedStatement select = connection.prepareStatement(
+                "SELECT id FROM medical_records WHERE patient_id = ? ORDER BY created_at, id LIMIT ? FOR UPDATE")) {
+            select.setLong(1, patientId);
+            select.setInt(2, batchSize);
+            try (ResultSet rs = select.executeQuery()) {
+                while (rs.next()) {
+                    recordIds.add(rs.getLong(1));
+                }
+            }
+        }
+        if (recordIds.isEmpty()) {
+            return 0;
+        }
+
+        Array ids = connection.createArrayOf("bigint", recordIds.toArray());
+        try (PreparedStatement contents = connection.prepareStatement(
+                "DELETE FROM medical_record_contents WHERE record_id = ANY (?)")) {
+            contents.setArray(1, ids);
+            contents.executeUpdate();
+        }
+        try (PreparedStatement tokens = connection.prepareStatement(
+                "DELETE FROM record_keyword_tokens WHERE record_id = ANY (?)")) {
+            tokens.setArray(1, ids);
+            tokens.executeUpdate();
+        }
+        try (PreparedStatement records = connection.prepareStatement(
+                "DELETE FROM medical_records WHERE id = ANY (?)")) {
+            records.setArray(1, ids);
+            return records.executeUpdate();
+        }
+    }
+
+    private void updateStatus(UserPurgeJob job, EPurgeStatus status, String error) {
+        LocalDateTime now = LocalDateTime.now();
+        job.setStatus(status);
+        job.setError(error != null && error.length() > 1000 ? error.substring(0, 1000) : error);
+        job.setUpdatedAt(now);
+        if (status == EPurgeStatus.COMPLETED || status == EPurgeStatus.FAILED) {
+            job.setCompletedAt(now);
+        }
+        userPurgeJobRepository.save(job);
+    }
+}
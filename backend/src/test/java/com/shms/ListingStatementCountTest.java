@@ -0,0 +1,244 @@
+package com.shms;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import com.jayway.jsonpath.JsonPath;
+
+import com.shms.config.RoleRegistry;
+import com.shms.config.SqlStatementCounter;
+import com.shms.model.Doctor;
+import com.shms.model.ERole;
+import com.shms.model.MedicalRecord;
+import com.shms.model.Patient;
+import com.shms.model.User;
+import com.shms.repository.DoctorRepository;
+import com.shms.repository.MedicalRecordRepository;
+import com.shms.repository.PatientRepository;
+import com.shms.repository.UserRepository;
+import com.shms.security.services.UserDetailsImpl;
+import com.shms.service.impl.AssignmentIndex;
+
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+
+/**
+ * Pins the number of SQL statements each listing endpoint runs. The counts are
+ * taken with N rows behind every listing and again with 10N; a listing that
+ * loads an association per row shows up as a difference between the two. Each
+ * listing must also return the rows added in between, so one that fails into an
+ * empty page cannot pass, and stay within shms.sql-budget.max-statements.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+class ListingStatementCountTest {
+
+    private static final int N = 5;
+
+    // Large enough that every page holds all the rows seeded
+    private static final String PAGE = "500";
+
+    private static final AtomicInteger SEQUENCE = new AtomicInteger();
+
+    private static EmbeddedPostgres postgres;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private SqlStatementCounter sqlStatementCounter;
+
+    @Autowired
+    private RoleRegistry roleRegistry;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private DoctorRepository doctorRepository;
+
+    @Autowired
+    private PatientRepository patientRepository;
+
+    @Autowired
+    private MedicalRecordRepository medicalRecordRepository;
+
+    @Autowired
+    private AssignmentIndex assignmentIndex;
+
+    @Value("${shms.sql-budget.max-statements}")
+    private int maxStatements;
+
+    @DynamicPropertySource
+    static void datasource(DynamicPropertyRegistry registry) throws IOException {
+        // The server is stopped by its own shutdown hook once the cached context is closed
+        if (postgres == null) {
+            postgres = EmbeddedPostgres.builder().start();
+        }
+        registry.add("spring.datasource.url", () -> postgres.getJdbcUrl("postgres", "postgres"));
+        registry.add("spring.datasource.username", () -> "postgres");
+        registry.add("spring.datasource.password", () -> "");
+    }
+
+    @Test
+    void listingsRunTheSameStatementsForTenTimesTheRows() throws Exception {
+        User adminUser = createUser(ERole.ROLE_ADMIN);
+        Doctor doctor = createDoctor();
+        Patient patient = createPatient();
+        assignmentIndex.assign(doctor.getId(), patient.getId());
+
+        grow(doctor, patient, N);
+        Map<String, Listing> small = list(adminUser, doctor, patient);
+
+        grow(doctor, patient, 9 * N);
+        Map<String, Listing> large = list(adminUser, doctor, patient);
+
+        for (String name : small.keySet()) {
+            assertEquals(small.get(name).statements, large.get(name).statements, name);
+            assertTrue(large.get(name).statements <= maxStatements,
+                    name + " ran " + large.get(name).statements + " statements");
+        }
+
+        // Records and assignments belong to this test's doctor and patient alone
+        assertItems(small, large, "patient records (patient)", N, 10 * N);
+        assertItems(small, large, "patient records (doctor)", N, 10 * N);
+        assertItems(small, large, "patient record search", N, 10 * N);
+        assertItems(small, large, "doctor records", N, 10 * N);
+        assertItems(small, large, "assigned patients", 1 + N, 1 + 10 * N);
+
+        // The rest list every user, doctor or patient, including rows other tests left behind
+        assertGrowth(small, large, "available patients", 9 * N);
+        assertGrowth(small, large, "admin users", 2 * 9 * N);
+        assertGrowth(small, large, "admin doctors", 9 * N);
+        assertGrowth(small, large, "admin patients", 9 * N);
+    }
+
+    private void assertItems(Map<String, Listing> small, Map<String, Listing> large, String name,
+                             int smallItems, int largeItems) {
+        assertEquals(smallItems, small.get(name).items, name);
+        assertEquals(largeItems, large.get(name).items, name);
+    }
+
+    private void assertGrowth(Map<String, Listing> small, Map<String, Listing> large, String name, int growth) {
+        assertEquals(growth, large.get(name).items - small.get(name).items, name);
+    }
+
+    /**
+     * Add rows to every listing: users, doctors and assigned patients, and records
+     * the doctor wrote for the patient
+     */
+    private void grow(Doctor doctor, Patient patient, int count) {
+        for (int i = 0; i < count; i++) {
+            createDoctor();
+            Patient other = createPatient();
+            assignmentIndex.assign(doctor.getId(), other.getId());
+
+            LocalDateTime now = LocalDateTime.now();
+            MedicalRecord record = new MedicalRecord();
+            record.setPatient(patient);
+            record.setDoctor(doctor);
+            record.setRecordType("LAB_RESULT");
+            record.setFileName("result-" + SEQUENCE.incrementAndGet() + ".pdf");
+            record.setContentType("application/pdf");
+            record.setContentLength(0L);
+            record.setCreatedAt(now);
+            record.setUpdatedAt(now);
+            medicalRecordRepository.save(record);
+        }
+    }
+
+    private Map<String, Listing> list(User adminUser, Doctor doctor, Patient patient) throws Exception {
+        UserDetailsImpl admin = UserDetailsImpl.build(adminUser);
+        UserDetailsImpl doctorUser = UserDetailsImpl.build(doctor.getUser());
+        UserDetailsImpl patientUser = UserDetailsImpl.build(patient.getUser());
+        String patientRecords = "/api/records/patient/" + patient.getId();
+
+        Map<String, Listing> listings = new LinkedHashMap<>();
+        listings.put("patient records (patient)", list(patientRecords, patientUser, "$.items"));
+        listings.put("patient records (doctor)", list(patientRecords, doctorUser, "$.items"));
+        listings.put("patient record search", list(patientRecords + "/search", doctorUser, "$.items"));
+        listings.put("doctor records", list("/api/records/doctor", doctorUser, "$.items"));
+        listings.put("assigned patients", list("/api/doctors/patients", doctorUser, "$"));
+        listings.put("available patients", list("/api/doctors/available-patients", doctorUser, "$.items"));
+        listings.put("admin users", list("/api/admin/users", admin, "$.items"));
+        listings.put("admin doctors", list("/api/admin/doctors", admin, "$.items"));
+        listings.put("admin patients", list("/api/admin/patients", admin, "$.items"));
+        return listings;
+    }
+
+    /**
+     * Call a listing once to warm the caches, then again while counting statements
+     * @param items JSON path of the array holding the listed rows
+     */
+    private Listing list(String path, UserDetailsImpl principal, String items) throws Exception {
+        // The first call fills the principal and assignment caches, which must not count
+        mockMvc.perform(get(path).param("size", PAGE).with(user(principal)))
+                .andExpect(status().isOk());
+
+        MvcResult result;
+        int statements;
+        sqlStatementCounter.start();
+        try {
+            result = mockMvc.perform(get(path).param("size", PAGE).with(user(principal)))
+                    .andExpect(status().isOk())
+                    .andReturn();
+        } finally {
+            statements = sqlStatementCounter.stop();
+        }
+        int length = JsonPath.read(result.getResponse().getContentAsString(), items + ".length()");
+        return new Listing(statements, length);
+    }
+
+    private User createUser(ERole role) {
+        int n = SEQUENCE.incrementAndGet();
+        User user = new User();
+        user.setUsername("user" + n);
+        user.setEmail("user" + n + "@example.com");
+        user.setPassword("password");
+        user.getRoles().add(roleRegistry.get(role));
+        return userRepository.save(user);
+    }
+
+    private Doctor createDoctor() {
+        Doctor doctor = new Doctor();
+        doctor.setUser(createUser(ERole.ROLE_DOCTOR));
+        doctor.setSpecialty("Cardiology");
+        doctor.setLicenseNumber("LIC-" + SEQUENCE.incrementAndGet());
+        return doctorRepository.save(doctor);
+    }
+
+    private Patient createPatient() {
+        Patient patient = new Patient();
+        patient.setUser(createUser(ERole.ROLE_PATIENT));
+        patient.setDateOfBirth("1980-01-01");
+        return patientRepository.save(patient);
+    }
+
+    private static final class Listing {
+        private final int statements;
+        private final int items;
+
+        Listing(int statements, int items) {
+            this.statements = statements;
+            this.items = items;
+        }
+    }
+}
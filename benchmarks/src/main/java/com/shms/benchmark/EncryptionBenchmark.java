@@ -0,0 +1,96 @@
+package com.shms.benchmark;
+
+import java.security.GeneralSecurityException;
+import java.util.Base64;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import javax.crypto.SecretKey;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+
+import com.shms.security.encryption.EncryptionService;
+
+/**
+ * AES-256 GCM encryption and decryption by payload size, plus the Base64 step
+ * the string-based API adds on top of it.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = { "-Xms2g", "-Xmx2g" })
+@State(Scope.Thread)
+public class EncryptionBenchmark {
+
+    // GCM refuses to reuse a key and IV on one cipher, so encryption cycles through IVs
+    private static final int IV_COUNT = 16;
+
+    @Param({ "1024", "65536", "1048576", "16777216", "67108864" })
+    private int payloadSize;
+
+    private AnnotationConfigApplicationContext context;
+    private EncryptionService encryptionService;
+    private SecretKey key;
+    private byte[][] ivs;
+    private int nextIv;
+    private byte[] plaintext;
+    private byte[] ciphertext;
+    private String ciphertextBase64;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        context = BenchmarkContext.start(EncryptionService.class);
+        encryptionService = context.getBean(EncryptionService.class);
+        key = encryptionService.toSecretKey(encryptionService.generateAESKey());
+
+        ivs = new byte[IV_COUNT][];
+        for (int i = 0; i < IV_COUNT; i++) {
+            ivs[i] = Base64.getDecoder().decode(encryptionService.generateIV());
+        }
+
+        plaintext = new byte[payloadSize];
+        new Random(42).nextBytes(plaintext);
+        ciphertext = encryptionService.encrypt(plaintext, key, ivs[0]);
+        ciphertextBase64 = Base64.getEncoder().encodeToString(ciphertext);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public byte[] encrypt() throws GeneralSecurityException {
+        nextIv = (nextIv + 1) % IV_COUNT;
+        return encryptionService.encrypt(plaintext, key, ivs[nextIv]);
+    }
+
+    @Benchmark
+    public byte[] decrypt() throws GeneralSecurityException {
+        return encryptionService.decrypt(ciphertext, key, ivs[0]);
+    }
+
+    @Benchmark
+    public String base64Encode() {
+        return Base64.getEncoder().encodeToString(ciphertext);
+    }
+
+    @Benchmark
+    public byte[] base64Decode() {
+        return Base64.getDecoder().decode(ciphertextBase64);
+    }
+}
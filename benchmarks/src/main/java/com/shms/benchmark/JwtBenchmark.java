@@ -0,0 +1,76 @@
+package com.shms.benchmark;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+import com.shms.security.jwt.JwtUtils;
+import com.shms.security.services.UserDetailsImpl;
+
+import io.jsonwebtoken.Claims;
+
+/**
+ * Token issue at login and the per-request work of {@code AuthTokenFilter}:
+ * verifying the signature and building the principal from the claims.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class JwtBenchmark {
+
+    private AnnotationConfigApplicationContext context;
+    private JwtUtils jwtUtils;
+    private Authentication authentication;
+    private String token;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start(JwtUtils.class);
+        jwtUtils = context.getBean(JwtUtils.class);
+
+        UserDetailsImpl principal = new UserDetailsImpl(1L, "patient1", "patient1@example.com", null,
+                List.of(new SimpleGrantedAuthority("ROLE_PATIENT")));
+        authentication = new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities());
+        token = jwtUtils.generateJwtToken(authentication);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public String generateJwtToken() {
+        return jwtUtils.generateJwtToken(authentication);
+    }
+
+    @Benchmark
+    public Claims parseJwtToken() {
+        return jwtUtils.parseJwtToken(token);
+    }
+
+    @Benchmark
+    public UserDetailsImpl authenticateFromClaims() {
+        Claims claims = jwtUtils.parseJwtToken(token);
+        return jwtUtils.getUserDetailsFromJwtClaims(claims);
+    }
+}
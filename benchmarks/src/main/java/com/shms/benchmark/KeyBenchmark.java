@@ -0,0 +1,92 @@
+package com.shms.benchmark;
+
+import java.security.NoSuchAlgorithmException;
+import java.security.spec.InvalidKeySpecException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+
+import com.shms.security.encryption.EncryptionService;
+
+/**
+ * Key material generation and the patient key wrap as done at registration and
+ * on every password-based unlock.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class KeyBenchmark {
+
+    private static final String PASSWORD = "correct horse battery staple";
+
+    private AnnotationConfigApplicationContext context;
+    private EncryptionService encryptionService;
+    private String salt;
+    private String aesKey;
+    private String passwordDerivedKey;
+    private String iv;
+    private String encryptedAesKey;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        context = BenchmarkContext.start(EncryptionService.class);
+        encryptionService = context.getBean(EncryptionService.class);
+        salt = encryptionService.generateSalt();
+        aesKey = encryptionService.generateAESKey();
+        iv = encryptionService.generateIV();
+        passwordDerivedKey = encryptionService.deriveKeyFromPassword(PASSWORD, salt);
+        encryptedAesKey = encryptionService.encryptAESKey(aesKey, passwordDerivedKey, iv);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public String generateAESKey() throws NoSuchAlgorithmException {
+        return encryptionService.generateAESKey();
+    }
+
+    @Benchmark
+    public String generateIV() {
+        return encryptionService.generateIV();
+    }
+
+    @Benchmark
+    public String generateSalt() {
+        return encryptionService.generateSalt();
+    }
+
+    @Benchmark
+    public String deriveKeyFromPassword() throws NoSuchAlgorithmException, InvalidKeySpecException {
+        return encryptionService.deriveKeyFromPassword(PASSWORD, salt);
+    }
+
+    @Benchmark
+    public String unwrapPatientKey() throws Exception {
+        return encryptionService.decryptAESKey(encryptedAesKey, passwordDerivedKey, iv);
+    }
+
+    @Benchmark
+    public String unlockPatientKey() throws Exception {
+        // What a password-based decrypt pays before it can touch the record
+        String derivedKey = encryptionService.deriveKeyFromPassword(PASSWORD, salt);
+        return encryptionService.decryptAESKey(encryptedAesKey, derivedKey, iv);
+    }
+}
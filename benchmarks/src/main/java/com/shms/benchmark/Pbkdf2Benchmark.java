@@ -0,0 +1,60 @@
+package com.shms.benchmark;
+
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.util.concurrent.TimeUnit;
+
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.PBEKeySpec;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * PBKDF2-HMAC-SHA256 at several iteration counts, with the same key length and salt
+ * size as {@code EncryptionService}. The service's count is a constant, so this runs
+ * the JCA call directly to size a change to it before making one.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class Pbkdf2Benchmark {
+
+    private static final char[] PASSWORD = "correct horse battery staple".toCharArray();
+
+    @Param({ "10000", "100000", "310000", "600000" })
+    private int iterations;
+
+    private SecretKeyFactory factory;
+    private byte[] salt;
+
+    @Setup(Level.Trial)
+    public void setUp() throws GeneralSecurityException {
+        factory = SecretKeyFactory.getInstance("PBKDF2WithHmacSHA256");
+        salt = new byte[16];
+        new SecureRandom().nextBytes(salt);
+    }
+
+    @Benchmark
+    public byte[] deriveKey() throws GeneralSecurityException {
+        PBEKeySpec spec = new PBEKeySpec(PASSWORD, salt, iterations, 256);
+        try {
+            return factory.generateSecret(spec).getEncoded();
+        } finally {
+            spec.clearPassword();
+        }
+    }
+}
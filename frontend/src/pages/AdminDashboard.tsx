@@ -15,17 +15,27 @@ interface User {
 
 interface Doctor {
   id: number;
-  user: User;
+  userId: number;
+  username: string;
+  email: string;
+  firstName: string;
+  lastName: string;
   specialty: string;
   licenseNumber: string;
+  patientCount: number;
 }
 
 interface Patient {
   id: number;
-  user: User;
+  userId: number;
+  username: string;
+  email: string;
+  firstName: string;
+  lastName: string;
   dateOfBirth: string;
   contactNumber: string;
   address: string;
+  recordCount: number;
 }
 
 const AdminDashboard: React.FC = () => {
@@ -53,7 +63,7 @@ const AdminDashboard: React.FC = () => {
     // Load all users
     axios.get('http://localhost:8080/api/admin/users', { headers: authHeader() })
       .then(response => {
-        setUsers(response.data);
+        setUsers(response.data.items);
         setLoading(false);
       })
       .catch(error => {
@@ -64,7 +74,7 @@ const AdminDashboard: React.FC = () => {
     // Load doctors
     axios.get('http://localhost:8080/api/admin/doctors', { headers: authHeader() })
       .then(response => {
-        setDoctors(response.data);
+        setDoctors(response.data.items);
       })
       .catch(error => {
         console.error('Error loading doctors:', error);
@@ -73,7 +83,7 @@ const AdminDashboard: React.FC = () => {
     // Load patients
     axios.get('http://localhost:8080/api/admin/patients', { headers: authHeader() })
       .then(response => {
-        setPatients(response.data);
+        setPatients(response.data.items);
       })
       .catch(error => {
         console.error('Error loading patients:', error);
@@ -90,8 +100,9 @@ const AdminDashboard: React.FC = () => {
     
     setLoading(true);
     axios.delete(`http://localhost:8080/api/admin/users/${userToDelete.id}`, { headers: authHeader() })
-      .then(response => {
-        setMessage(response.data.message);
+      .then(() => {
+        // Deletion runs in the background; the user disappears once the purge job finishes
+        setMessage(`Deletion of ${userToDelete.username} has been queued`);
         loadData(); // Reload data
         setShowDeleteModal(false);
         setUserToDelete(null);
@@ -178,10 +189,11 @@ const AdminDashboard: React.FC = () => {
                     <ListGroup>
                       {doctors.map(doctor => (
                         <ListGroup.Item key={doctor.id}>
-                          <h5>{doctor.user.firstName} {doctor.user.lastName}</h5>
-                          <p className="mb-0">Email: {doctor.user.email}</p>
+                          <h5>{doctor.firstName} {doctor.lastName}</h5>
+                          <p className="mb-0">Email: {doctor.email}</p>
                           <p className="mb-0">Specialty: {doctor.specialty}</p>
                           <p className="mb-0">License Number: {doctor.licenseNumber}</p>
+                          <p className="mb-0">Patients: {doctor.patientCount}</p>
                         </ListGroup.Item>
                       ))}
                     </ListGroup>
@@ -200,11 +212,12 @@ const AdminDashboard: React.FC = () => {
                     <ListGroup>
                       {patients.map(patient => (
                         <ListGroup.Item key={patient.id}>
-                          <h5>{patient.user.firstName} {patient.user.lastName}</h5>
-                          <p className="mb-0">Email: {patient.user.email}</p>
+                          <h5>{patient.firstName} {patient.lastName}</h5>
+                          <p className="mb-0">Email: {patient.email}</p>
                           <p className="mb-0">Date of Birth: {patient.dateOfBirth || 'N/A'}</p>
                           <p className="mb-0">Contact: {patient.contactNumber || 'N/A'}</p>
                           <p className="mb-0">Address: {patient.address || 'N/A'}</p>
+                          <p className="mb-0">Records: {patient.recordCount}</p>
                         </ListGroup.Item>
                       ))}
                     </ListGroup>
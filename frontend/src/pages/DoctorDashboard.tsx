@@ -48,7 +48,7 @@ const DoctorDashboard: React.FC = () => {
     setLoading(true);
     MedicalRecordService.getDoctorRecords()
       .then((response) => {
-        setRecords(response.data);
+        setRecords(response.data.items);
         setLoading(false);
       })
       .catch((error) => {
@@ -71,7 +71,7 @@ const DoctorDashboard: React.FC = () => {
     // Load available patients
     DoctorService.getAvailablePatients()
       .then((response) => {
-        setAvailablePatients(response.data);
+        setAvailablePatients(response.data.items);
         setLoading(false);
       })
       .catch((error) => {
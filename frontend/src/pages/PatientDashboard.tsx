@@ -39,7 +39,7 @@ const PatientDashboard: React.FC = () => {
     setLoading(true);
     MedicalRecordService.getPatientRecords(userId)
       .then((response) => {
-        setMedicalRecords(response.data);
+        setMedicalRecords(response.data.items);
         setLoading(false);
       })
       .catch((error) => {
@@ -1,4 +1,5 @@
 import axios from 'axios';
+import authHeader from './auth-header';
 
 const API_URL = 'http://localhost:8080/api/auth/';
 
@@ -37,6 +38,10 @@ class AuthService {
   }
 
   logout() {
+    // Let the server drop any patient keys this session unlocked
+    if (this.isLoggedIn()) {
+      axios.post(API_URL + 'logout', {}, { headers: authHeader() }).catch(() => {});
+    }
     localStorage.removeItem('user');
   }
 
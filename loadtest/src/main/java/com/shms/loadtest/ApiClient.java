@@ -0,0 +1,220 @@
+package com.shms.loadtest;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Thin HTTP client for the backend API. Every call is timed under its endpoint
+ * template (e.g. {@code POST /api/records/decrypt/{id}}) once a recorder is set.
+ */
+final class ApiClient {
+
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(60);
+
+    private final HttpClient http;
+    private final String baseUrl;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private volatile LatencyRecorder recorder;
+
+    ApiClient(int port) {
+        this.http = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+        this.baseUrl = "http://localhost:" + port;
+    }
+
+    void setRecorder(LatencyRecorder recorder) {
+        this.recorder = recorder;
+    }
+
+    String login(String username, String password) throws IOException, InterruptedException {
+        JsonNode response = send("POST /api/auth/login", post("/api/auth/login", null,
+                Map.of("username", username, "password", password)));
+        return response.get("token").asText();
+    }
+
+    void registerDoctor(String username, String password, String email) throws IOException, InterruptedException {
+        send("POST /api/auth/register/doctor", post("/api/auth/register/doctor", null, Map.of(
+                "username", username,
+                "email", email,
+                "password", password,
+                "firstName", "Load",
+                "lastName", username,
+                "specialty", "General Practice",
+                "licenseNumber", "LT-" + username)));
+    }
+
+    /**
+     * @return The summary line of the import report
+     */
+    JsonNode importPatients(String token, byte[] ndjson) throws IOException, InterruptedException {
+        HttpRequest request = authorized("/api/admin/patients/import", token)
+                .header("Content-Type", "application/x-ndjson")
+                .POST(HttpRequest.BodyPublishers.ofByteArray(ndjson))
+                .build();
+        String report = sendForText("POST /api/admin/patients/import", request);
+        String[] lines = report.trim().split("\n");
+        return objectMapper.readTree(lines[lines.length - 1]);
+    }
+
+    /**
+     * @return Patient ids by username, read page by page from the available-patients listing
+     */
+    Map<String, Long> listPatientIds(String token) throws IOException, InterruptedException {
+        Map<String, Long> ids = new HashMap<>();
+        String cursor = null;
+        do {
+            String path = "/api/doctors/available-patients?size=500" + (cursor != null ? "&cursor=" + cursor : "");
+            JsonNode page = send("GET /api/doctors/available-patients", authorized(path, token).GET().build());
+            for (JsonNode patient : page.get("items")) {
+                ids.put(patient.get("username").asText(), patient.get("id").asLong());
+            }
+            cursor = page.hasNonNull("nextCursor") ? page.get("nextCursor").asText() : null;
+        } while (cursor != null);
+        return ids;
+    }
+
+    JsonNode assign(String token, long patientId) throws IOException, InterruptedException {
+        return send("POST /api/doctors/assign/{patientId}",
+                post("/api/doctors/assign/" + patientId, token, null));
+    }
+
+    JsonNode unassign(String token, long patientId) throws IOException, InterruptedException {
+        return send("POST /api/doctors/unassign/{patientId}",
+                post("/api/doctors/unassign/" + patientId, token, null));
+    }
+
+    JsonNode listAssignedPatients(String token) throws IOException, InterruptedException {
+        return send("GET /api/doctors/patients", authorized("/api/doctors/patients", token).GET().build());
+    }
+
+    JsonNode listPatientRecords(String token, long patientId, int size) throws IOException, InterruptedException {
+        return send("GET /api/records/patient/{patientId}",
+                authorized("/api/records/patient/" + patientId + "?size=" + size, token).GET().build());
+    }
+
+    /**
+     * @return Record ids of every record the listing returns, following the cursor
+     */
+    List<Long> listAllRecordIds(String token, long patientId) throws IOException, InterruptedException {
+        List<Long> ids = new ArrayList<>();
+        String cursor = null;
+        do {
+            String path = "/api/records/patient/" + patientId + "?size=500" + (cursor != null ? "&cursor=" + cursor : "");
+            JsonNode page = send("GET /api/records/patient/{patientId}", authorized(path, token).GET().build());
+            for (JsonNode record : page.get("items")) {
+                ids.add(record.get("id").asLong());
+            }
+            cursor = page.hasNonNull("nextCursor") ? page.get("nextCursor").asText() : null;
+        } while (cursor != null);
+        return ids;
+    }
+
+    JsonNode listDoctorRecords(String token, int size) throws IOException, InterruptedException {
+        return send("GET /api/records/doctor", authorized("/api/records/doctor?size=" + size, token).GET().build());
+    }
+
+    JsonNode uploadFile(String token, String password, String recordType, String fileName, byte[] content)
+            throws IOException, InterruptedException {
+        String boundary = "----shms-loadtest-" + UUID.randomUUID();
+        ByteArrayOutputStream body = new ByteArrayOutputStream(content.length + 512);
+        writePart(body, boundary, "recordType", null, recordType.getBytes(StandardCharsets.UTF_8));
+        writePart(body, boundary, "password", null, password.getBytes(StandardCharsets.UTF_8));
+        writePart(body, boundary, "file", fileName, content);
+        body.write(("--" + boundary + "--\r\n").getBytes(StandardCharsets.UTF_8));
+
+        HttpRequest request = authorized("/api/records/upload/file", token)
+                .header("Content-Type", "multipart/form-data; boundary=" + boundary)
+                .POST(HttpRequest.BodyPublishers.ofByteArray(body.toByteArray()))
+                .build();
+        return send("POST /api/records/upload/file", request);
+    }
+
+    JsonNode decrypt(String token, long recordId, String password) throws IOException, InterruptedException {
+        return send("POST /api/records/decrypt/{recordId}",
+                post("/api/records/decrypt/" + recordId, token, Map.of("password", password)));
+    }
+
+    JsonNode decryptBatch(String token, List<Long> recordIds, String password)
+            throws IOException, InterruptedException {
+        return send("POST /api/records/decrypt",
+                post("/api/records/decrypt", token, Map.of("recordIds", recordIds, "password", password)));
+    }
+
+    private HttpRequest post(String path, String token, Object body) throws IOException {
+        HttpRequest.Builder builder = authorized(path, token);
+        if (body == null) {
+            return builder.POST(HttpRequest.BodyPublishers.noBody()).build();
+        }
+        return builder.header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(body)))
+                .build();
+    }
+
+    private HttpRequest.Builder authorized(String path, String token) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(baseUrl + path)).timeout(REQUEST_TIMEOUT);
+        if (token != null) {
+            builder.header("Authorization", "Bearer " + token);
+        }
+        return builder;
+    }
+
+    private JsonNode send(String endpoint, HttpRequest request) throws IOException, InterruptedException {
+        String body = sendForText(endpoint, request);
+        return body.isEmpty() ? objectMapper.nullNode() : objectMapper.readTree(body);
+    }
+
+    private String sendForText(String endpoint, HttpRequest request) throws IOException, InterruptedException {
+        long start = System.nanoTime();
+        HttpResponse<String> response;
+        try {
+            response = http.send(request, HttpResponse.BodyHandlers.ofString(StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            record(endpoint, -1, start);
+            throw e;
+        }
+        record(endpoint, response.statusCode(), start);
+
+        if (response.statusCode() < 200 || response.statusCode() >= 300) {
+            throw new ApiException(endpoint, response.statusCode(), response.body());
+        }
+        return response.body();
+    }
+
+    private void record(String endpoint, int status, long start) {
+        LatencyRecorder current = recorder;
+        if (current != null) {
+            current.record(endpoint, status, System.nanoTime() - start);
+        }
+    }
+
+    private static void writePart(ByteArrayOutputStream body, String boundary, String name, String fileName,
+                                  byte[] content) throws IOException {
+        StringBuilder headers = new StringBuilder()
+                .append("--").append(boundary).append("\r\n")
+                .append("Content-Disposition: form-data; name=\"").append(name).append('"');
+        if (fileName != null) {
+            headers.append("; filename=\"").append(fileName).append("\"\r\n")
+                    .append("Content-Type: application/octet-stream");
+        }
+        headers.append("\r\n\r\n");
+        body.write(headers.toString().getBytes(StandardCharsets.UTF_8));
+        body.write(content);
+        body.write("\r\n".getBytes(StandardCharsets.UTF_8));
+    }
+}
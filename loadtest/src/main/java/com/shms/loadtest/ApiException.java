@@ -0,0 +1,18 @@
+package com.shms.loadtest;
+
+/**
+ * A request that completed with a non-2xx status.
+ */
+class ApiException extends RuntimeException {
+
+    private final int status;
+
+    ApiException(String endpoint, int status, String body) {
+        super(endpoint + " returned " + status + ": " + body);
+        this.status = status;
+    }
+
+    int getStatus() {
+        return status;
+    }
+}
@@ -0,0 +1,111 @@
+package com.shms.loadtest;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+/**
+ * Per-endpoint latency histograms and error counts. HTTP 429 is counted on its own
+ * and has its own budget: it is the hashing pool shedding load, not a failure of
+ * the request.
+ */
+final class LatencyRecorder {
+
+    private static final long HIGHEST_TRACKABLE_MICROS = TimeUnit.MINUTES.toMicros(10);
+
+    private final Map<String, EndpointStats> endpoints = new ConcurrentHashMap<>();
+
+    void record(String endpoint, int status, long elapsedNanos) {
+        EndpointStats stats = endpoints.computeIfAbsent(endpoint, name -> new EndpointStats());
+        stats.latency.recordValue(Math.min(TimeUnit.NANOSECONDS.toMicros(elapsedNanos), HIGHEST_TRACKABLE_MICROS));
+        if (status == 429) {
+            stats.rejected.increment();
+        } else if (status < 200 || status >= 300) {
+            stats.errors.increment();
+        }
+    }
+
+    List<EndpointReport> report(long elapsedNanos) {
+        double seconds = elapsedNanos / 1_000_000_000.0;
+        List<EndpointReport> reports = new ArrayList<>();
+        new TreeMap<>(endpoints).forEach((endpoint, stats) -> {
+            Histogram latency = stats.latency.copy();
+            reports.add(new EndpointReport(endpoint, latency.getTotalCount(), stats.errors.sum(),
+                    stats.rejected.sum(), latency.getTotalCount() / seconds,
+                    millis(latency.getValueAtPercentile(50)), millis(latency.getValueAtPercentile(99)),
+                    millis(latency.getValueAtPercentile(99.9)), millis(latency.getMaxValue())));
+        });
+        return reports;
+    }
+
+    static void print(List<EndpointReport> reports, PrintStream out) {
+        out.printf("%-42s %9s %7s %8s %9s %9s %9s %9s %9s%n",
+                "endpoint", "requests", "errors", "rejected", "req/s", "p50 ms", "p99 ms", "p999 ms", "max ms");
+        for (EndpointReport report : reports) {
+            out.printf("%-42s %9d %7d %8d %9.1f %9.2f %9.2f %9.2f %9.2f%n",
+                    report.endpoint, report.requests, report.errors, report.rejected, report.throughput,
+                    report.p50Millis, report.p99Millis, report.p999Millis, report.maxMillis);
+        }
+    }
+
+    static void write(Path file, LoadTestSettings settings, List<EndpointReport> reports) throws IOException {
+        Map<String, Object> document = new LinkedHashMap<>();
+        document.put("threads", settings.threads);
+        document.put("durationSeconds", settings.durationSeconds);
+        document.put("doctors", settings.doctors);
+        document.put("patients", settings.patients);
+        document.put("recordsPerPatient", settings.recordsPerPatient);
+        document.put("mix", settings.mix);
+        document.put("endpoints", reports);
+        new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(file.toFile(), document);
+    }
+
+    private static double millis(long micros) {
+        return micros / 1000.0;
+    }
+
+    private static final class EndpointStats {
+        private final ConcurrentHistogram latency = new ConcurrentHistogram(HIGHEST_TRACKABLE_MICROS, 3);
+        private final LongAdder errors = new LongAdder();
+        private final LongAdder rejected = new LongAdder();
+    }
+
+    static final class EndpointReport {
+        public final String endpoint;
+        public final long requests;
+        public final long errors;
+        public final long rejected;
+        public final double throughput;
+        public final double p50Millis;
+        public final double p99Millis;
+        public final double p999Millis;
+        public final double maxMillis;
+
+        EndpointReport(String endpoint, long requests, long errors, long rejected, double throughput,
+                       double p50Millis, double p99Millis, double p999Millis, double maxMillis) {
+            this.endpoint = endpoint;
+            this.requests = requests;
+            this.errors = errors;
+            this.rejected = rejected;
+            this.throughput = throughput;
+            this.p50Millis = p50Millis;
+            this.p99Millis = p99Millis;
+            this.p999Millis = p999Millis;
+            this.maxMillis = maxMillis;
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package com.shms.loadtest;
+
+import java.nio.file.Path;
+import java.util.List;
+
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.shms.HospitalManagementApplication;
+
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+
+/**
+ * End-to-end load test. Starts an embedded PostgreSQL and the backend on a random
+ * local port, seeds doctors, patients, assignments and records, warms up, then runs
+ * the operation mix and reports throughput and p50/p99/p999 latency per endpoint.
+ * Needs no network, so it can gate a release on a single machine.
+ *
+ * <p>Exits with status 1 when the error rate is above {@code --max-error-rate}, when
+ * any endpoint has more than {@code --max-rejected-rate} of its requests rejected
+ * with HTTP 429 or, if {@code --max-p99-millis} is set, when any endpoint's p99 is
+ * above it.
+ */
+public class LoadTestMain {
+
+    public static void main(String[] args) throws Exception {
+        LoadTestSettings settings = LoadTestSettings.parse(args);
+        int exitCode;
+
+        try (EmbeddedPostgres postgres = EmbeddedPostgres.builder().start();
+             ConfigurableApplicationContext application = startApplication(postgres)) {
+            int port = application.getEnvironment().getRequiredProperty("local.server.port", Integer.class);
+            ApiClient client = new ApiClient(port);
+
+            Population population = new Seeder(client, settings).seed();
+            Workload workload = new Workload(client, settings, population);
+
+            System.out.printf("Warming up for %d s on %d threads%n", settings.warmupSeconds, settings.threads);
+            workload.run(settings.warmupSeconds);
+
+            LatencyRecorder recorder = new LatencyRecorder();
+            client.setRecorder(recorder);
+            System.out.printf("Measuring for %d s on %d threads%n", settings.durationSeconds, settings.threads);
+            long elapsedNanos = workload.run(settings.durationSeconds);
+            client.setRecorder(null);
+
+            List<LatencyRecorder.EndpointReport> reports = recorder.report(elapsedNanos);
+            LatencyRecorder.print(reports, System.out);
+            LatencyRecorder.write(Path.of(settings.reportFile), settings, reports);
+            System.out.println("Report written to " + settings.reportFile);
+
+            exitCode = checkBudgets(settings, reports) ? 0 : 1;
+        }
+        System.exit(exitCode);
+    }
+
+    private static ConfigurableApplicationContext startApplication(EmbeddedPostgres postgres) {
+        // Command-line arguments take precedence over application.properties
+        return new SpringApplicationBuilder(HospitalManagementApplication.class)
+                .run("--spring.datasource.url=" + postgres.getJdbcUrl("postgres", "postgres"),
+                        "--spring.datasource.username=postgres",
+                        "--spring.datasource.password=",
+                        "--spring.jpa.show-sql=false",
+                        "--server.port=0");
+    }
+
+    private static boolean checkBudgets(LoadTestSettings settings, List<LatencyRecorder.EndpointReport> reports) {
+        long requests = 0;
+        long errors = 0;
+        boolean passed = true;
+        for (LatencyRecorder.EndpointReport report : reports) {
+            requests += report.requests;
+            errors += report.errors;
+            if (settings.maxP99Millis > 0 && report.p99Millis > settings.maxP99Millis) {
+                System.out.printf("FAIL: %s p99 %.2f ms is above %d ms%n",
+                        report.endpoint, report.p99Millis, settings.maxP99Millis);
+                passed = false;
+            }
+            // Checked per endpoint; a rate over the whole mix would hide an endpoint that is always shed
+            double rejectedRate = report.requests == 0 ? 0 : (double) report.rejected / report.requests;
+            if (rejectedRate > settings.maxRejectedRate) {
+                System.out.printf("FAIL: %s rejected rate %.4f is above %.4f%n",
+                        report.endpoint, rejectedRate, settings.maxRejectedRate);
+                passed = false;
+            }
+        }
+
+        double errorRate = requests == 0 ? 1 : (double) errors / requests;
+        if (errorRate > settings.maxErrorRate) {
+            System.out.printf("FAIL: error rate %.4f is above %.4f%n", errorRate, settings.maxErrorRate);
+            passed = false;
+        }
+        return passed;
+    }
+}
@@ -0,0 +1,71 @@
+package com.shms.loadtest;
+
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Load test options, given as {@code --name=value} arguments. Operation weights are
+ * set with {@code --mix.<operation>=<weight>}, e.g. {@code --mix.decrypt=40}.
+ */
+final class LoadTestSettings {
+
+    final int doctors;
+    final int patients;
+    final int assignmentsPerDoctor;
+    final int recordsPerPatient;
+    final int recordSizeBytes;
+    final int seedThreads;
+    final int threads;
+    final int warmupSeconds;
+    final int durationSeconds;
+    final double maxErrorRate;
+    final double maxRejectedRate;
+    final long maxP99Millis;
+    final String reportFile;
+    final Map<Operation, Integer> mix;
+
+    private LoadTestSettings(Map<String, String> options) {
+        doctors = intOption(options, "doctors", 10);
+        patients = intOption(options, "patients", 200);
+        assignmentsPerDoctor = intOption(options, "assignments-per-doctor", 20);
+        recordsPerPatient = intOption(options, "records-per-patient", 5);
+        recordSizeBytes = intOption(options, "record-size", 4096);
+        seedThreads = intOption(options, "seed-threads", Runtime.getRuntime().availableProcessors());
+        threads = intOption(options, "threads", 16);
+        warmupSeconds = intOption(options, "warmup", 15);
+        durationSeconds = intOption(options, "duration", 60);
+        maxErrorRate = Double.parseDouble(options.getOrDefault("max-error-rate", "0.01"));
+        maxRejectedRate = Double.parseDouble(options.getOrDefault("max-rejected-rate", "0.1"));
+        maxP99Millis = Long.parseLong(options.getOrDefault("max-p99-millis", "0"));
+        reportFile = options.getOrDefault("report", "loadtest-report.json");
+
+        mix = new EnumMap<>(Operation.class);
+        for (Operation operation : Operation.values()) {
+            mix.put(operation, intOption(options, "mix." + operation.getOptionName(), operation.getDefaultWeight()));
+        }
+        if (doctors < 1 || patients < 1) {
+            throw new IllegalArgumentException("At least one doctor and one patient are needed");
+        }
+        if (assignmentsPerDoctor > patients) {
+            throw new IllegalArgumentException("assignments-per-doctor cannot exceed patients");
+        }
+    }
+
+    static LoadTestSettings parse(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                throw new IllegalArgumentException("Expected --name=value but got: " + arg);
+            }
+            int separator = arg.indexOf('=');
+            options.put(arg.substring(2, separator), arg.substring(separator + 1));
+        }
+        return new LoadTestSettings(options);
+    }
+
+    private static int intOption(Map<String, String> options, String name, int defaultValue) {
+        String value = options.get(name);
+        return value != null ? Integer.parseInt(value) : defaultValue;
+    }
+}
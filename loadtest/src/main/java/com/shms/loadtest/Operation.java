@@ -0,0 +1,32 @@
+package com.shms.loadtest;
+
+/**
+ * The requests the workload issues, with their default share of the mix.
+ * The defaults lean on listings and decrypts, which is what the dashboards do most.
+ */
+enum Operation {
+    LOGIN("login", 5),
+    LIST_PATIENT_RECORDS("list-patient-records", 25),
+    LIST_DOCTOR_RECORDS("list-doctor-records", 10),
+    LIST_ASSIGNED_PATIENTS("list-assigned-patients", 10),
+    UPLOAD("upload", 15),
+    DECRYPT("decrypt", 20),
+    DECRYPT_BATCH("decrypt-batch", 5),
+    ASSIGN("assign", 10);
+
+    private final String optionName;
+    private final int defaultWeight;
+
+    Operation(String optionName, int defaultWeight) {
+        this.optionName = optionName;
+        this.defaultWeight = defaultWeight;
+    }
+
+    String getOptionName() {
+        return optionName;
+    }
+
+    int getDefaultWeight() {
+        return defaultWeight;
+    }
+}
@@ -0,0 +1,41 @@
+package com.shms.loadtest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * The seeded users with their credentials, current tokens and known ids.
+ */
+final class Population {
+
+    final List<Patient> patients = new ArrayList<>();
+    final List<Doctor> doctors = new ArrayList<>();
+
+    static final class Patient {
+        final String username;
+        final String password;
+        volatile long id;
+        volatile String token;
+        final List<Long> recordIds = new CopyOnWriteArrayList<>();
+
+        Patient(String username, String password) {
+            this.username = username;
+            this.password = password;
+        }
+    }
+
+    static final class Doctor {
+        final String username;
+        final String password;
+        volatile String token;
+        final Set<Long> assignedPatientIds = ConcurrentHashMap.newKeySet();
+
+        Doctor(String username, String password) {
+            this.username = username;
+            this.password = password;
+        }
+    }
+}
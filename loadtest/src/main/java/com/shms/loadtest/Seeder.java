@@ -0,0 +1,152 @@
+package com.shms.loadtest;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Seeds the database through the public API, so every row is written the way the
+ * application writes it: patients via the NDJSON import, doctors via registration,
+ * assignments by the doctors themselves and records as server-side encrypted uploads.
+ */
+final class Seeder {
+
+    private static final String ADMIN_USERNAME = "admin";
+    private static final String ADMIN_PASSWORD = "admin123";
+    private static final int IMPORT_CHUNK = 5000;
+
+    private final ApiClient client;
+    private final LoadTestSettings settings;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final Random random = new Random(42);
+
+    Seeder(ApiClient client, LoadTestSettings settings) {
+        this.client = client;
+        this.settings = settings;
+    }
+
+    Population seed() throws Exception {
+        Population population = new Population();
+        for (int i = 0; i < settings.patients; i++) {
+            population.patients.add(new Population.Patient("ltp" + i, "ltpass" + i));
+        }
+        for (int i = 0; i < settings.doctors; i++) {
+            population.doctors.add(new Population.Doctor("ltd" + i, "ltpass" + i));
+        }
+
+        ExecutorService pool = Executors.newFixedThreadPool(settings.seedThreads);
+        try {
+            long start = System.nanoTime();
+            importPatients(population.patients);
+            log("Imported %d patients", population.patients.size(), start);
+
+            start = System.nanoTime();
+            runAll(pool, population.doctors, doctor -> {
+                client.registerDoctor(doctor.username, doctor.password, doctor.username + "@loadtest.local");
+                doctor.token = client.login(doctor.username, doctor.password);
+            });
+            log("Registered %d doctors", population.doctors.size(), start);
+
+            Map<String, Long> patientIds = client.listPatientIds(population.doctors.get(0).token);
+            for (Population.Patient patient : population.patients) {
+                Long id = patientIds.get(patient.username);
+                if (id == null) {
+                    throw new IllegalStateException("Imported patient not found: " + patient.username);
+                }
+                patient.id = id;
+            }
+
+            start = System.nanoTime();
+            List<Long> allPatientIds = new ArrayList<>(patientIds.values());
+            runAll(pool, population.doctors, doctor -> {
+                List<Long> candidates = new ArrayList<>(allPatientIds);
+                Collections.shuffle(candidates, new Random(doctor.username.hashCode()));
+                for (Long patientId : candidates.subList(0, settings.assignmentsPerDoctor)) {
+                    client.assign(doctor.token, patientId);
+                    doctor.assignedPatientIds.add(patientId);
+                }
+            });
+            log("Made %d assignments", settings.doctors * settings.assignmentsPerDoctor, start);
+
+            start = System.nanoTime();
+            runAll(pool, population.patients, patient -> {
+                patient.token = client.login(patient.username, patient.password);
+                for (int i = 0; i < settings.recordsPerPatient; i++) {
+                    client.uploadFile(patient.token, patient.password, "LAB_RESULT", "seed-" + i + ".bin",
+                            payload(settings.recordSizeBytes));
+                }
+                patient.recordIds.addAll(client.listAllRecordIds(patient.token, patient.id));
+            });
+            log("Uploaded %d records", settings.patients * settings.recordsPerPatient, start);
+        } finally {
+            pool.shutdownNow();
+        }
+        return population;
+    }
+
+    private void importPatients(List<Population.Patient> patients) throws IOException, InterruptedException {
+        String adminToken = client.login(ADMIN_USERNAME, ADMIN_PASSWORD);
+        for (int from = 0; from < patients.size(); from += IMPORT_CHUNK) {
+            ByteArrayOutputStream ndjson = new ByteArrayOutputStream();
+            for (Population.Patient patient : patients.subList(from, Math.min(from + IMPORT_CHUNK, patients.size()))) {
+                Map<String, Object> row = new LinkedHashMap<>();
+                row.put("username", patient.username);
+                row.put("email", patient.username + "@loadtest.local");
+                row.put("password", patient.password);
+                row.put("firstName", "Load");
+                row.put("lastName", patient.username);
+                row.put("dateOfBirth", "1980-01-01");
+                ndjson.write(objectMapper.writeValueAsBytes(row));
+                ndjson.write('\n');
+            }
+            JsonNode summary = client.importPatients(adminToken, ndjson.toByteArray());
+            if (summary.path("failed").asLong() > 0) {
+                throw new IllegalStateException("Patient import reported failures: " + summary);
+            }
+        }
+    }
+
+    private byte[] payload(int size) {
+        byte[] content = new byte[size];
+        synchronized (random) {
+            random.nextBytes(content);
+        }
+        return content;
+    }
+
+    private static <T> void runAll(ExecutorService pool, List<T> items, SeedTask<T> task)
+            throws InterruptedException, ExecutionException {
+        List<Callable<Void>> calls = new ArrayList<>(items.size());
+        for (T item : items) {
+            calls.add(() -> {
+                task.run(item);
+                return null;
+            });
+        }
+        for (Future<Void> result : pool.invokeAll(calls)) {
+            result.get();
+        }
+    }
+
+    private static void log(String format, int count, long startNanos) {
+        System.out.printf(format + " in %.1f s%n", count, (System.nanoTime() - startNanos) / 1_000_000_000.0);
+    }
+
+    @FunctionalInterface
+    private interface SeedTask<T> {
+        void run(T item) throws Exception;
+    }
+}
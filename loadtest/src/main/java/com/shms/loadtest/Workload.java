@@ -0,0 +1,145 @@
+package com.shms.loadtest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Drives the weighted operation mix from a fixed number of closed-loop client threads:
+ * each thread issues its next request as soon as the previous one completes.
+ */
+final class Workload {
+
+    private static final int PAGE_SIZE = 50;
+    private static final int BATCH_DECRYPT_SIZE = 10;
+
+    private final ApiClient client;
+    private final LoadTestSettings settings;
+    private final Population population;
+    private final Operation[] operations;
+    private final int[] cumulativeWeights;
+
+    Workload(ApiClient client, LoadTestSettings settings, Population population) {
+        this.client = client;
+        this.settings = settings;
+        this.population = population;
+
+        List<Operation> enabled = new ArrayList<>();
+        List<Integer> weights = new ArrayList<>();
+        int total = 0;
+        for (Map.Entry<Operation, Integer> entry : settings.mix.entrySet()) {
+            if (entry.getValue() > 0) {
+                total += entry.getValue();
+                enabled.add(entry.getKey());
+                weights.add(total);
+            }
+        }
+        if (enabled.isEmpty()) {
+            throw new IllegalArgumentException("The operation mix has no positive weights");
+        }
+        this.operations = enabled.toArray(new Operation[0]);
+        this.cumulativeWeights = weights.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    /**
+     * Run the mix for the given time on all client threads
+     * @return Elapsed wall-clock time in nanoseconds
+     */
+    long run(int seconds) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+        CountDownLatch finished = new CountDownLatch(settings.threads);
+        long start = System.nanoTime();
+        for (int i = 0; i < settings.threads; i++) {
+            Thread worker = new Thread(() -> {
+                try {
+                    while (System.nanoTime() < deadline) {
+                        runOnce(nextOperation());
+                    }
+                } finally {
+                    finished.countDown();
+                }
+            }, "loadtest-" + i);
+            worker.setDaemon(true);
+            worker.start();
+        }
+        finished.await();
+        return System.nanoTime() - start;
+    }
+
+    private Operation nextOperation() {
+        int pick = ThreadLocalRandom.current().nextInt(cumulativeWeights[cumulativeWeights.length - 1]);
+        for (int i = 0; i < cumulativeWeights.length; i++) {
+            if (pick < cumulativeWeights[i]) {
+                return operations[i];
+            }
+        }
+        return operations[operations.length - 1];
+    }
+
+    private void runOnce(Operation operation) {
+        try {
+            perform(operation);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            // Already counted by the recorder; the client thread keeps going
+        }
+    }
+
+    private void perform(Operation operation) throws Exception {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        Population.Patient patient = population.patients.get(random.nextInt(population.patients.size()));
+        Population.Doctor doctor = population.doctors.get(random.nextInt(population.doctors.size()));
+
+        switch (operation) {
+            case LOGIN:
+                if (random.nextBoolean()) {
+                    patient.token = client.login(patient.username, patient.password);
+                } else {
+                    doctor.token = client.login(doctor.username, doctor.password);
+                }
+                break;
+            case LIST_PATIENT_RECORDS:
+                client.listPatientRecords(patient.token, patient.id, PAGE_SIZE);
+                break;
+            case LIST_DOCTOR_RECORDS:
+                client.listDoctorRecords(doctor.token, PAGE_SIZE);
+                break;
+            case LIST_ASSIGNED_PATIENTS:
+                client.listAssignedPatients(doctor.token);
+                break;
+            case UPLOAD:
+                byte[] content = new byte[settings.recordSizeBytes];
+                random.nextBytes(content);
+                client.uploadFile(patient.token, patient.password, "LAB_RESULT", "load.bin", content);
+                break;
+            case DECRYPT:
+                if (!patient.recordIds.isEmpty()) {
+                    long recordId = patient.recordIds.get(random.nextInt(patient.recordIds.size()));
+                    client.decrypt(patient.token, recordId, patient.password);
+                }
+                break;
+            case DECRYPT_BATCH:
+                if (!patient.recordIds.isEmpty()) {
+                    List<Long> recordIds = patient.recordIds.subList(0,
+                            Math.min(BATCH_DECRYPT_SIZE, patient.recordIds.size()));
+                    client.decryptBatch(patient.token, new ArrayList<>(recordIds), patient.password);
+                }
+                break;
+            case ASSIGN:
+                // Toggle, so the assignment count stays around the seeded level
+                if (doctor.assignedPatientIds.remove(patient.id)) {
+                    client.unassign(doctor.token, patient.id);
+                } else {
+                    client.assign(doctor.token, patient.id);
+                    doctor.assignedPatientIds.add(patient.id);
+                }
+                break;
+            default:
+                throw new IllegalStateException("Unknown operation: " + operation);
+        }
+    }
+}